@@ -12,68 +12,65 @@ PLOT_PATH = "static/plots"
 os.makedirs(PLOT_PATH, exist_ok=True)
 
 
-def fetch_data(endpoint, start_date, end_date):
-    url = f"{BASE_URL}{endpoint}?start_date={start_date}&end_date={end_date}"
-    response = requests.get(url)
+# Last response of each query with its ETag, revalidated on the next poll
+response_cache = {}
+
+
+def fetch_data(endpoint, start_date, end_date, params=None):
+    url = f"{BASE_URL}{endpoint}"
+    query = {"start_date": start_date, "end_date": end_date, **(params or {})}
+    key = (endpoint, tuple(sorted((k, str(v)) for k, v in query.items())))
+    cached = response_cache.get(key)
+    headers = {"If-None-Match": cached[0]} if cached else {}
+    response = requests.get(url, params=query, headers=headers)
+    if response.status_code == 304 and cached:
+        return cached[1]
     if response.status_code == 200:
-        return response.json()
+        data = response.json()
+        if "ETag" in response.headers:
+            response_cache[key] = (response.headers["ETag"], data)
+        return data
     else:
         print(f"Error fetching data from {endpoint}: {response.status_code}")
-        return []
+        return {}
 
 
-def plot_miss_distance(ax, data):
-    asteroid_names = [d['name'] for d in data]
-    distances = [d['distance'] / 1e7 for d in data]
-    ax.barh(asteroid_names, distances, color='red')
-    ax.set_xlabel('Miss Distance (10^7 km)')
-    ax.set_title('Miss Distances of Asteroids')
-    ax.invert_yaxis()
+HISTOGRAM_BINS = 30
 
 
-def plot_velocity(ax, data):
-    asteroid_names = [d['name'] for d in data]
-    velocities = [d['velocity'] for d in data]
-    ax.barh(asteroid_names, velocities, color='blue')
-    ax.set_xlabel('Relative Velocity (km/s)')
-    ax.set_title('Relative Velocities of Asteroids')
-    ax.invert_yaxis()
-
-
-def plot_diameter_range(ax, data):
-    min_diameter = data['estimated_diameter_min']
-    max_diameter = data['estimated_diameter_max']
-
-    # Using logarithmic scale for y-axis for better visualization
-    ax.set_yscale('log')
-
-    # Adjust the bars to account for the logarithmic scale
-    ax.bar(0, max_diameter, color='yellow',
-           label='Max Diameter', align='center', width=0.4)
-    ax.bar(0, min_diameter, color='green',
-           label='Min Diameter', align='center', width=0.4)
-
-    ax.set_ylabel('Diameter (km, log scale)')
-    ax.set_title('Estimated Diameter of Asteroid (Min/Max)')
-    ax.legend()
-    ax.set_xlim(-1, 1)
-    ax.set_xticks([])
-
-    # Ensure small values are visible
-    ax.set_ylim(bottom=0.001)
+def plot_histogram(ax, data, xlabel, title, color, scale=1.0):
+    edges = [edge / scale for edge in data.get('binEdges', [])]
+    counts = data.get('counts', [])
+    if counts:
+        ax.stairs(counts, edges, fill=True, color=color)
+    if data.get('scale') == 'log':
+        ax.set_xscale('log')
+    ax.set_xlabel(xlabel)
+    ax.set_ylabel('Close approaches')
+    ax.set_title(title)
+    if data.get('count'):
+        ax.axvline(data['mean'] / scale, color='black', linestyle='--',
+                   label=f"Mean ({data['count']} approaches)")
+        ax.legend()
 
 
 def plot_all_data(start_date, end_date):
     fig, axes = plt.subplots(3, 1, figsize=(10, 15))
 
-    data = fetch_data("listMissDistanceJson", start_date, end_date)
-    plot_miss_distance(axes[0], data)
-
-    data = fetch_data("listRelativeVelocityJson", start_date, end_date)
-    plot_velocity(axes[1], data)
-
-    data = fetch_data("listMaxMinDiameterJson", start_date, end_date)
-    plot_diameter_range(axes[2], data)
+    # The server bins the approaches, so the payload does not grow with the range
+    def histogram(metric, scale):
+        return fetch_data("histogramJson", start_date, end_date, {
+            "metric": metric, "bins": HISTOGRAM_BINS, "scale": scale})
+
+    plot_histogram(axes[0], histogram("missDistances", "linear"),
+                   'Miss Distance (10^7 km)', 'Miss Distances of Asteroids',
+                   'red', scale=1e7)
+    plot_histogram(axes[1], histogram("relativeVelocity", "linear"),
+                   'Relative Velocity (km/s)', 'Relative Velocities of Asteroids',
+                   'blue')
+    plot_histogram(axes[2], histogram("diameter", "log"),
+                   'Estimated Max Diameter (km, log scale)',
+                   'Estimated Diameters of Asteroids', 'green')
 
     plt.tight_layout()
     plt.show()
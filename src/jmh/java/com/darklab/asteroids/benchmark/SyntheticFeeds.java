@@ -0,0 +1,75 @@
+package com.darklab.asteroids.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.darklab.asteroids.dto.*;
+
+/**
+ * Generates NeoWs feeds shaped like the real ones, with reproducible values
+ * for a given seed.
+ */
+final class SyntheticFeeds {
+
+	private SyntheticFeeds() {
+	}
+
+	/**
+	 * @param days
+	 *            The number of days in the feed, starting on 2023-01-01.
+	 * @param objectsPerDay
+	 *            The number of near earth objects reported each day.
+	 * @param seed
+	 *            The seed of the generated values.
+	 * @return A feed with one close approach per object.
+	 */
+	static NeoWsResponse generate(int days, int objectsPerDay, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		Map<String, List<NeoObject>> nearEarthObjects = new LinkedHashMap<>();
+		LocalDate day = LocalDate.of(2023, 1, 1);
+		for (int d = 0; d < days; d++, day = day.plusDays(1)) {
+			List<NeoObject> objects = new ArrayList<>(objectsPerDay);
+			for (int i = 0; i < objectsPerDay; i++) {
+				objects.add(neoObject(random, d * objectsPerDay + i, day));
+			}
+			nearEarthObjects.put(day.toString(), objects);
+		}
+		NeoWsResponse response = new NeoWsResponse();
+		response.setNear_earth_objects(nearEarthObjects);
+		return response;
+	}
+
+	private static NeoObject neoObject(SplittableRandom random, int index, LocalDate day) {
+		// Diameters span a few metres to a few kilometres, like the real feed
+		double minDiameter = Math.pow(10, random.nextDouble(-2.5, 0.5));
+		Diameter kilometers = new Diameter();
+		kilometers.setEstimated_diameter_min(minDiameter);
+		kilometers.setEstimated_diameter_max(minDiameter * 2.236);
+		EstimatedDiameter estimatedDiameter = new EstimatedDiameter();
+		estimatedDiameter.setKilometers(kilometers);
+
+		RelativeVelocity relativeVelocity = new RelativeVelocity();
+		relativeVelocity.setKilometers_per_second(random.nextDouble(1, 40));
+		MissDistance missDistance = new MissDistance();
+		missDistance.setKilometers(random.nextDouble(1e5, 7.5e7));
+		CloseApproachData closeApproachData = new CloseApproachData();
+		closeApproachData.setClose_approach_date_full(day + " 12:00");
+		closeApproachData.setRelative_velocity(relativeVelocity);
+		closeApproachData.setMiss_distance(missDistance);
+		closeApproachData.setOrbiting_body("Earth");
+
+		NeoObject neoObject = new NeoObject();
+		neoObject.setId(String.valueOf(2_000_000 + index));
+		neoObject.setName("(" + day.getYear() + " " + (char) ('A' + index % 26) + (char) ('A' + index / 26 % 26)
+				+ index + ")");
+		neoObject.setAbsolute_magnitude_h(random.nextDouble(15, 30));
+		neoObject.setEstimated_diameter(estimatedDiameter);
+		neoObject.setIs_potentially_hazardous_asteroid(random.nextInt(10) == 0);
+		neoObject.setClose_approach_data(List.of(closeApproachData));
+		return neoObject;
+	}
+}
@@ -0,0 +1,136 @@
+package com.darklab.asteroids.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.darklab.asteroids.dto.AsteroidMissDistanceDTO;
+import com.darklab.asteroids.dto.AsteroidVelocityDTO;
+import com.darklab.asteroids.dto.Diameter;
+import com.darklab.asteroids.dto.HistogramDTO;
+import com.darklab.asteroids.service.ApproachArchive;
+import com.darklab.asteroids.service.ApproachMetric;
+import com.darklab.asteroids.service.CloseApproachColumns;
+import com.darklab.asteroids.service.DateRange;
+import com.darklab.asteroids.service.DaySummary;
+import com.darklab.asteroids.service.NeoWsDay;
+import com.darklab.asteroids.service.ResultWindow;
+import com.darklab.asteroids.service.Utils;
+
+/**
+ * Throughput of the {@link Utils} extractors, on feeds from one day to a
+ * year of objects.
+ * <p>
+ * The velocity and miss distance benchmarks merge the per-day columns the
+ * service caches, for the whole sorted list and for the top 10. The diameter
+ * benchmarks merge the per-day summaries first. {@code histogramArchive}
+ * scans the memory-mapped archive instead of the columns.
+ * Run with {@code mvn -Pjmh compile exec:exec}, which also reports the
+ * allocation rate with the gc profiler.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UtilsBenchmark {
+	private static final ResultWindow TOP_TEN = new ResultWindow(0, 10, true);
+
+	@Param({"1", "7", "30", "365"})
+	private int days;
+
+	@Param({"20"})
+	private int objectsPerDay;
+
+	private List<CloseApproachColumns> columns;
+	private List<DaySummary> summaries;
+	private Path archiveDir;
+	private ApproachArchive archive;
+	private DateRange range;
+
+	@Setup
+	public void setUp() throws IOException {
+		List<NeoWsDay> neoWsDays = SyntheticFeeds.generate(days, objectsPerDay, 42L).getNear_earth_objects()
+				.entrySet().stream().map(entry -> NeoWsDay.of(LocalDate.parse(entry.getKey()), entry.getValue()))
+				.toList();
+		columns = neoWsDays.stream().map(NeoWsDay::columns).toList();
+		summaries = neoWsDays.stream().map(NeoWsDay::summary).toList();
+		archiveDir = Files.createTempDirectory("neows-archive");
+		archive = new ApproachArchive(archiveDir, Clock.fixed(LocalDate.of(2100, 1, 1).atStartOfDay()
+				.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+		archive.append(neoWsDays);
+		range = new DateRange(neoWsDays.stream().map(NeoWsDay::date).min(Comparator.naturalOrder()).orElseThrow(),
+				neoWsDays.stream().map(NeoWsDay::date).max(Comparator.naturalOrder()).orElseThrow());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(archiveDir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<String> maxMinDiameter() {
+		return Utils.extractMaxMinDiameter(DaySummary.merge(summaries));
+	}
+
+	@Benchmark
+	public Diameter maxMinDiameterJson() {
+		return Utils.extractMaxMinDiameterJson(DaySummary.merge(summaries));
+	}
+
+	@Benchmark
+	public List<String> relativeVelocity() {
+		return Utils.extractRelativeVelocity(columns, ResultWindow.ALL);
+	}
+
+	@Benchmark
+	public List<AsteroidVelocityDTO> relativeVelocityJson() {
+		return Utils.extractRelativeVelocityJson(columns, ResultWindow.ALL);
+	}
+
+	@Benchmark
+	public List<AsteroidVelocityDTO> relativeVelocityJsonTopTen() {
+		return Utils.extractRelativeVelocityJson(columns, TOP_TEN);
+	}
+
+	@Benchmark
+	public List<String> missDistances() {
+		return Utils.extractMissDistances(columns, ResultWindow.ALL);
+	}
+
+	@Benchmark
+	public List<AsteroidMissDistanceDTO> missDistancesJson() {
+		return Utils.extractMissDistancesJson(columns, ResultWindow.ALL);
+	}
+
+	@Benchmark
+	public List<AsteroidMissDistanceDTO> missDistancesJsonTopTen() {
+		return Utils.extractMissDistancesJson(columns, TOP_TEN);
+	}
+
+	@Benchmark
+	public HistogramDTO histogramColumns() {
+		return Utils.extractHistogramJson(columns, ApproachMetric.RELATIVE_VELOCITY, "relativeVelocity", 20, false);
+	}
+
+	@Benchmark
+	public HistogramDTO histogramArchive() {
+		return Utils.extractHistogramJson(archive, range, ApproachMetric.RELATIVE_VELOCITY, "relativeVelocity", 20,
+				false);
+	}
+}
@@ -0,0 +1,168 @@
+package com.darklab.asteroids.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load generator for the JSON endpoints of the application.
+ * <p>
+ * {@code --concurrency} workers send requests back to back for
+ * {@code --duration-s} seconds, after a {@code --warmup-s} second warm-up
+ * whose requests are not counted. Each request goes to one of the
+ * {@code --endpoints} in turn, for a {@code --range-days} long date range
+ * starting on a random day between {@code --from} and {@code --to}. The
+ * random days are reproducible for a given {@code --seed}.
+ * </p>
+ * <p>
+ * The report lists, per endpoint, the throughput, the error count and the
+ * p50, p95 and p99 latencies. Run it against an application pointed at a
+ * {@link NeoWsReplayServer} to keep the NeoWs quota out of the picture.
+ * </p>
+ *
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dexec.mainClass=com.darklab.asteroids.loadtest.LoadTestRunner \
+ *     -Dexec.args="--target=http://localhost:8080 --concurrency=32 --duration-s=60"
+ * </pre>
+ */
+public final class LoadTestRunner {
+	private static final String DEFAULT_ENDPOINTS = "listRelativeVelocityJson,listMissDistanceJson,"
+			+ "listMaxMinDiameterJson,listAllMetricsJson";
+
+	/**
+	 * Latencies and errors of one endpoint, as seen by one worker.
+	 */
+	private static final class Recorder {
+		private long[] latencies = new long[1024];
+		private int count;
+		private final Map<String, Integer> errors = new TreeMap<>();
+
+		void record(long latencyNanos) {
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = latencyNanos;
+		}
+
+		void error(String cause) {
+			errors.merge(cause, 1, Integer::sum);
+		}
+
+		void addAll(Recorder other) {
+			for (int i = 0; i < other.count; i++) {
+				record(other.latencies[i]);
+			}
+			other.errors.forEach((cause, n) -> errors.merge(cause, n, Integer::sum));
+		}
+
+		double percentileMillis(double percentile) {
+			if (count == 0) {
+				return Double.NaN;
+			}
+			long[] sorted = Arrays.copyOf(latencies, count);
+			Arrays.sort(sorted);
+			int rank = (int) Math.ceil(percentile / 100 * count) - 1;
+			return sorted[Math.max(0, rank)] / 1e6;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = Options.parse(args);
+		String target = options.getOrDefault("target", "http://localhost:8080");
+		List<String> endpoints = List.of(options.getOrDefault("endpoints", DEFAULT_ENDPOINTS).split(","));
+		int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+		long warmupNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup-s", "10"))).toNanos();
+		long durationNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-s", "60"))).toNanos();
+		LocalDate from = LocalDate.parse(options.getOrDefault("from", "2023-01-01"));
+		LocalDate to = LocalDate.parse(options.getOrDefault("to", "2023-12-31"));
+		int rangeDays = Integer.parseInt(options.getOrDefault("range-days", "7"));
+		long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		long startDays = Math.max(1, ChronoUnit.DAYS.between(from, to) - rangeDays + 2);
+
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		long warmupEnd = System.nanoTime() + warmupNanos;
+		long end = warmupEnd + durationNanos;
+
+		List<Future<Map<String, Recorder>>> results = new ArrayList<>();
+		for (int w = 0; w < concurrency; w++) {
+			Random random = new Random(seed + w);
+			int firstEndpoint = w;
+			results.add(workers.submit(() -> {
+				Map<String, Recorder> recorders = new HashMap<>();
+				for (int i = firstEndpoint; System.nanoTime() < end; i++) {
+					String endpoint = endpoints.get(i % endpoints.size());
+					LocalDate start = from.plusDays(random.nextInt((int) startDays));
+					URI uri = URI.create(target + "/" + endpoint + "?start_date=" + start + "&end_date="
+							+ start.plusDays(rangeDays - 1));
+					long sent = System.nanoTime();
+					String error = send(client, uri);
+					long received = System.nanoTime();
+					if (sent < warmupEnd) {
+						continue;
+					}
+					Recorder recorder = recorders.computeIfAbsent(endpoint, e -> new Recorder());
+					recorder.record(received - sent);
+					if (error != null) {
+						recorder.error(error);
+					}
+				}
+				return recorders;
+			}));
+		}
+
+		Map<String, Recorder> totals = new TreeMap<>();
+		for (Future<Map<String, Recorder>> result : results) {
+			result.get().forEach((endpoint, recorder) -> totals.computeIfAbsent(endpoint, e -> new Recorder())
+					.addAll(recorder));
+		}
+		workers.shutdown();
+		report(totals, durationNanos, concurrency);
+	}
+
+	/**
+	 * @return {@code null} if the request succeeded, or the status or exception
+	 *         it failed with.
+	 */
+	private static String send(HttpClient client, URI uri) {
+		try {
+			HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+					HttpResponse.BodyHandlers.discarding());
+			return response.statusCode() == 200 ? null : String.valueOf(response.statusCode());
+		} catch (IOException ex) {
+			return ex.getClass().getSimpleName();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return "interrupted";
+		}
+	}
+
+	private static void report(Map<String, Recorder> totals, long durationNanos, int concurrency) {
+		double seconds = durationNanos / 1e9;
+		System.out.printf("%d workers, %.0f s measured%n", concurrency, seconds);
+		System.out.printf("%-26s %9s %9s %9s %9s %9s %9s  %s%n", "endpoint", "requests", "req/s", "p50 ms",
+				"p95 ms", "p99 ms", "errors", "error causes");
+		Recorder all = new Recorder();
+		totals.forEach((endpoint, recorder) -> {
+			print(endpoint, recorder, seconds);
+			all.addAll(recorder);
+		});
+		print("all", all, seconds);
+	}
+
+	private static void print(String endpoint, Recorder recorder, double seconds) {
+		int errors = recorder.errors.values().stream().mapToInt(Integer::intValue).sum();
+		System.out.printf("%-26s %9d %9.1f %9.1f %9.1f %9.1f %9d  %s%n", endpoint, recorder.count,
+				recorder.count / seconds, recorder.percentileMillis(50), recorder.percentileMillis(95),
+				recorder.percentileMillis(99), errors, recorder.errors.isEmpty() ? "" : recorder.errors);
+	}
+}
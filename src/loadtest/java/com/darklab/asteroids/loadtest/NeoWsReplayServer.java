@@ -0,0 +1,170 @@
+package com.darklab.asteroids.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the NeoWs feed endpoint, replaying feeds recorded with
+ * {@code neows.record-dir}.
+ * <p>
+ * The recorded feeds are split into days. A request for any date range is
+ * answered with the recorded days, each requested day being mapped onto one of
+ * them, so load tests can use arbitrary dates. Every response is delayed by
+ * {@code --latency-ms} plus up to {@code --jitter-ms}, and a share
+ * {@code --error-rate} of the requests fails with {@code --error-status}.
+ * </p>
+ * <p>
+ * Point the application at it with
+ * {@code neows.base-url=http://localhost:<port>/neo/rest/v1/feed}.
+ * </p>
+ *
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dexec.mainClass=com.darklab.asteroids.loadtest.NeoWsReplayServer \
+ *     -Dexec.args="--recordings=./recordings --port=8089 --latency-ms=300 --error-rate=0.01"
+ * </pre>
+ */
+public final class NeoWsReplayServer {
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final List<JsonNode> recordedDays;
+	private final long latencyMillis;
+	private final long jitterMillis;
+	private final double errorRate;
+	private final int errorStatus;
+
+	NeoWsReplayServer(List<JsonNode> recordedDays, long latencyMillis, long jitterMillis, double errorRate,
+			int errorStatus) {
+		if (recordedDays.isEmpty()) {
+			throw new IllegalArgumentException("No recorded days to replay");
+		}
+		this.recordedDays = recordedDays;
+		this.latencyMillis = latencyMillis;
+		this.jitterMillis = jitterMillis;
+		this.errorRate = errorRate;
+		this.errorStatus = errorStatus;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = Options.parse(args);
+		List<JsonNode> recordedDays = loadRecordings(Path.of(options.getOrDefault("recordings", "./recordings")));
+		NeoWsReplayServer replay = new NeoWsReplayServer(recordedDays,
+				Long.parseLong(options.getOrDefault("latency-ms", "0")),
+				Long.parseLong(options.getOrDefault("jitter-ms", "0")),
+				Double.parseDouble(options.getOrDefault("error-rate", "0")),
+				Integer.parseInt(options.getOrDefault("error-status", "503")));
+		int port = Integer.parseInt(options.getOrDefault("port", "8089"));
+
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/neo/rest/v1/feed", replay::handle);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		System.out.printf("Replaying %d recorded days on http://localhost:%d/neo/rest/v1/feed%n", recordedDays.size(),
+				port);
+	}
+
+	/**
+	 * Reads the {@code near_earth_objects} days of every recorded feed, in date
+	 * order.
+	 */
+	static List<JsonNode> loadRecordings(Path directory) throws IOException {
+		Map<String, JsonNode> days = new TreeMap<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".json")).toList()) {
+				MAPPER.readTree(file.toFile()).path("near_earth_objects").fields()
+						.forEachRemaining(day -> days.put(day.getKey(), day.getValue()));
+			}
+		}
+		return List.copyOf(days.values());
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			sleep(latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0));
+			if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				exchange.sendResponseHeaders(errorStatus, -1);
+				return;
+			}
+			Map<String, String> query = query(exchange.getRequestURI());
+			LocalDate start = LocalDate.parse(query.get("start_date"));
+			LocalDate end = LocalDate.parse(query.getOrDefault("end_date", query.get("start_date")));
+			byte[] body = MAPPER.writeValueAsBytes(feed(start, end));
+
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.getResponseHeaders().add("X-RateLimit-Limit", "1000000");
+			exchange.getResponseHeaders().add("X-RateLimit-Remaining", "1000000");
+			String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+			if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+				exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+				exchange.sendResponseHeaders(200, 0);
+				try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+					out.write(body);
+				}
+			} else {
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		}
+	}
+
+	private ObjectNode feed(LocalDate start, LocalDate end) {
+		ObjectNode feed = MAPPER.createObjectNode();
+		ObjectNode nearEarthObjects = MAPPER.createObjectNode();
+		int elementCount = 0;
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			JsonNode objects = recordedDays.get((int) Math.floorMod(day.toEpochDay(), (long) recordedDays.size()));
+			nearEarthObjects.set(day.toString(), objects);
+			elementCount += objects.size();
+		}
+		feed.put("element_count", elementCount);
+		feed.set("near_earth_objects", nearEarthObjects);
+		return feed;
+	}
+
+	private static Map<String, String> query(URI uri) {
+		Map<String, String> query = new HashMap<>();
+		if (uri.getRawQuery() != null) {
+			for (String pair : uri.getRawQuery().split("&")) {
+				int separator = pair.indexOf('=');
+				if (separator > 0) {
+					query.put(pair.substring(0, separator),
+							URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return query;
+	}
+
+	private static void sleep(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.darklab.asteroids.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses {@code --name=value} command line options.
+ */
+final class Options {
+
+	private Options() {
+	}
+
+	static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got " + arg);
+			}
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		return options;
+	}
+}
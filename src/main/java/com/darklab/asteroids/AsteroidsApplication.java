@@ -1,13 +1,50 @@
 package com.darklab.asteroids;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.darklab.asteroids.service.NeoWsPrefetcher;
+import com.darklab.asteroids.service.NeoWsService;
 
 @SpringBootApplication
+@EnableScheduling
 public class AsteroidsApplication {
+	private static final Logger logger = LoggerFactory.getLogger(AsteroidsApplication.class);
 
 	public static void main(String[] args) {
 		SpringApplication.run(AsteroidsApplication.class, args);
 	}
 
+	/**
+	 * Warms the cache with the days around today at startup, so the first
+	 * requests after a deploy do not wait for NeoWs.
+	 */
+	@Bean
+	public ApplicationRunner neoWsWarmUp(ObjectProvider<NeoWsPrefetcher> prefetcher) {
+		return args -> prefetcher.ifAvailable(NeoWsPrefetcher::prefetch);
+	}
+
+	/**
+	 * Archives the days stored before the approach archive existed, in the
+	 * background, so long-range scans can be served from the archive on
+	 * deployments with existing history.
+	 */
+	@Bean
+	public ApplicationRunner neoWsArchiveImport(ObjectProvider<NeoWsService> neoWsService) {
+		return args -> neoWsService.ifAvailable(service -> CompletableFuture.runAsync(service::archiveStoredDays)
+				.whenComplete((ignored, ex) -> {
+					if (ex != null) {
+						logger.warn("Archiving the stored days failed: {}", ex.getMessage());
+					}
+				}));
+	}
+
 }
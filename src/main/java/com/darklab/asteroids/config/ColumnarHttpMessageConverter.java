@@ -0,0 +1,44 @@
+package com.darklab.asteroids.config;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.darklab.asteroids.service.ApproachColumnarWriter;
+import com.darklab.asteroids.service.SortedApproaches;
+
+/**
+ * Writes {@link SortedApproaches} to the response body in the columnar binary
+ * layout of {@link ApproachColumnarWriter}.
+ */
+public class ColumnarHttpMessageConverter extends AbstractHttpMessageConverter<SortedApproaches> {
+
+	public ColumnarHttpMessageConverter() {
+		super(MediaType.parseMediaType(ApproachColumnarWriter.MEDIA_TYPE));
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return SortedApproaches.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected SortedApproaches readInternal(Class<? extends SortedApproaches> clazz,
+			HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+		throw new HttpMessageNotReadableException("Columnar request bodies are not supported", inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(SortedApproaches approaches, HttpOutputMessage outputMessage) throws IOException {
+		ApproachColumnarWriter.write(approaches, outputMessage.getBody());
+	}
+}
@@ -0,0 +1,45 @@
+package com.darklab.asteroids.config;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.darklab.asteroids.service.ApproachNdjsonWriter;
+import com.darklab.asteroids.service.SortedApproaches;
+
+/**
+ * Writes {@link SortedApproaches} straight to the response body as
+ * {@code application/x-ndjson} with {@link ApproachNdjsonWriter}, so the
+ * records are streamed as they are produced instead of being collected first.
+ */
+public class NdjsonHttpMessageConverter extends AbstractHttpMessageConverter<SortedApproaches> {
+
+	public NdjsonHttpMessageConverter() {
+		super(MediaType.APPLICATION_NDJSON);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return SortedApproaches.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected SortedApproaches readInternal(Class<? extends SortedApproaches> clazz,
+			HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+		throw new HttpMessageNotReadableException("NDJSON request bodies are not supported", inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(SortedApproaches approaches, HttpOutputMessage outputMessage) throws IOException {
+		ApproachNdjsonWriter.write(approaches, outputMessage.getBody());
+	}
+}
@@ -0,0 +1,109 @@
+package com.darklab.asteroids.config;
+
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.darklab.asteroids.service.ApproachArchive;
+import com.darklab.asteroids.service.NeoWsRateLimiter;
+import com.darklab.asteroids.service.NeoWsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+@Configuration
+public class NeoWsConfig {
+
+	/**
+	 * The clock every component reads today's date from, so that they agree on
+	 * which days have ended.
+	 */
+	@Bean
+	public Clock clock() {
+		return Clock.systemDefaultZone();
+	}
+
+	/**
+	 * Bounded pool that reads and stores the NeoWs responses once they arrive.
+	 * The requests themselves do not hold a thread while waiting for NeoWs.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService neoWsFetchExecutor(@Value("${neows.fetch.parallelism:4}") int parallelism) {
+		return Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("neows-fetch-"));
+	}
+
+	/**
+	 * HTTP client used for every NeoWs request. It keeps its connections open
+	 * between requests, so the TLS handshake is paid once per connection rather
+	 * than once per request, and negotiates HTTP/2 when the configured version
+	 * allows it, multiplexing concurrent windows over a single connection.
+	 */
+	@Bean
+	public HttpClient neoWsHttpClient(@Value("${neows.http.version:HTTP_2}") HttpClient.Version version,
+			@Value("${neows.http.connect-timeout-ms:5000}") long connectTimeoutMillis) {
+		return HttpClient.newBuilder().version(version).connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+				.followRedirects(HttpClient.Redirect.NORMAL).build();
+	}
+
+	/**
+	 * Writes the JSON responses with a converter that times serialization. It
+	 * replaces the converter Spring Boot would otherwise register.
+	 */
+	@Bean
+	public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+			MeterRegistry meterRegistry) {
+		return new TimedJacksonHttpMessageConverter(objectMapper, meterRegistry);
+	}
+
+	/**
+	 * Streams the sorted approaches as newline-delimited JSON.
+	 */
+	@Bean
+	public NdjsonHttpMessageConverter ndjsonHttpMessageConverter() {
+		return new NdjsonHttpMessageConverter();
+	}
+
+	/**
+	 * Streams the sorted approaches in the columnar binary layout.
+	 */
+	@Bean
+	public ColumnarHttpMessageConverter columnarHttpMessageConverter() {
+		return new ColumnarHttpMessageConverter();
+	}
+
+	/**
+	 * Publishes the fetch counters of the service, the state of the quota
+	 * bucket and the size of the archive.
+	 */
+	@Bean
+	public MeterBinder neoWsMetrics(NeoWsService neoWsService, NeoWsRateLimiter rateLimiter,
+			ApproachArchive archive) {
+		return registry -> {
+			FunctionCounter.builder("neows.upstream.fetches", neoWsService, NeoWsService::getUpstreamFetchCount)
+					.description("Windows requested from NeoWs").register(registry);
+			FunctionCounter.builder("neows.upstream.coalesced", neoWsService, NeoWsService::getCoalescedFetchCount)
+					.description("Requests that joined a fetch already in flight").register(registry);
+			Gauge.builder("neows.quota.tokens", rateLimiter, NeoWsRateLimiter::getAvailableTokens)
+					.description("Requests the quota bucket allows right now").register(registry);
+			Gauge.builder("neows.quota.queued", rateLimiter, NeoWsRateLimiter::getQueuedCount)
+					.description("Requests waiting for quota").register(registry);
+			FunctionCounter.builder("neows.quota.rejected", rateLimiter, NeoWsRateLimiter::getRejectedCount)
+					.description("Requests shed for lack of quota").register(registry);
+			Gauge.builder("neows.archive.records", archive, ApproachArchive::getRecordCount)
+					.description("Close approaches held by the archive").register(registry);
+			Gauge.builder("neows.archive.segments", archive, ApproachArchive::getSegmentCount)
+					.description("Months held by the archive").register(registry);
+		};
+	}
+}
@@ -0,0 +1,41 @@
+package com.darklab.asteroids.config;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Jackson message converter that records how long writing each JSON response
+ * takes in the {@code neows.response.serialization} timer, tagged with the
+ * type of the response body.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+	private final MeterRegistry meterRegistry;
+
+	public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+		super(objectMapper);
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		try {
+			super.writeInternal(object, type, outputMessage);
+		} finally {
+			sample.stop(Timer.builder("neows.response.serialization")
+					.description("Time spent writing JSON responses")
+					.tag("type", object == null ? "null" : object.getClass().getSimpleName())
+					.publishPercentileHistogram().register(meterRegistry));
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.darklab.asteroids.controller;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.darklab.asteroids.service.ExpiringLruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Cache of the serialized bodies of the JSON endpoints, keyed by the
+ * normalized query.
+ *
+ * <p>
+ * The first successful response to a query is serialized once and kept with a
+ * strong {@code ETag} computed from its bytes. Repeat queries are answered with
+ * the cached bytes, or with {@code 304 Not Modified} when their
+ * {@code If-None-Match} header holds the current tag, without extracting or
+ * serializing anything. Only {@code 200 OK} responses are cached.
+ * </p>
+ *
+ * <p>
+ * Ranges that end before today never change, so their responses are cached for
+ * {@code neows.response-cache.past-ttl-minutes} and sent as immutable. Ranges
+ * reaching today or later are still revised by NeoWs: they are cached for
+ * {@code neows.response-cache.current-ttl-seconds} and sent with
+ * {@code no-cache}, so clients revalidate them with their tag.
+ * </p>
+ */
+@Component
+public class JsonResponseCache {
+	private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic()
+			.immutable();
+	private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+	private record CachedResponse(byte[] body, String etag, CacheControl cacheControl) {
+	}
+
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+	private final ExpiringLruCache<String, CachedResponse> responses;
+	private final Duration pastTtl;
+	private final Duration currentTtl;
+
+	public JsonResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${neows.response-cache.max-entries:500}") int maxEntries,
+			@Value("${neows.response-cache.past-ttl-minutes:1440}") long pastTtlMinutes,
+			@Value("${neows.response-cache.current-ttl-seconds:60}") long currentTtlSeconds) {
+		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
+		this.pastTtl = Duration.ofMinutes(pastTtlMinutes);
+		this.currentTtl = Duration.ofSeconds(currentTtlSeconds);
+		this.responses = new ExpiringLruCache<>(maxEntries, currentTtl);
+	}
+
+	/**
+	 * Answers the request from the cache, or computes, serializes and caches the
+	 * response.
+	 *
+	 * @param request
+	 *            The request, whose path and parameters are the cache key.
+	 * @param immutable
+	 *            Whether the response can never change.
+	 * @param compute
+	 *            Computes the response on a cache miss.
+	 * @return A future of the response. Cached responses complete immediately.
+	 */
+	public CompletableFuture<ResponseEntity<?>> serve(HttpServletRequest request, boolean immutable,
+			Supplier<CompletableFuture<ResponseEntity<?>>> compute) {
+		String key = keyOf(request);
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		CachedResponse cached = responses.get(key).orElse(null);
+		if (cached != null) {
+			count("hit");
+			return CompletableFuture.completedFuture(toResponse(cached, ifNoneMatch));
+		}
+		count("miss");
+		return compute.get().thenApply(response -> {
+			if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+				return response;
+			}
+			byte[] body = serialize(response.getBody());
+			CachedResponse entry = new CachedResponse(body, etagOf(body), immutable ? IMMUTABLE : REVALIDATE);
+			responses.put(key, entry, immutable ? pastTtl : currentTtl);
+			return toResponse(entry, ifNoneMatch);
+		});
+	}
+
+	/**
+	 * @return the path followed by the parameters sorted by name, so the order in
+	 *         which a client lists them does not matter.
+	 */
+	private static String keyOf(HttpServletRequest request) {
+		StringBuilder key = new StringBuilder(request.getRequestURI());
+		Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+		parameters.forEach(
+				(name, values) -> key.append('&').append(name).append('=').append(String.join(",", values)));
+		return key.toString();
+	}
+
+	private byte[] serialize(Object body) {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		try {
+			return objectMapper.writeValueAsBytes(body);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot serialize " + body.getClass().getSimpleName(), e);
+		} finally {
+			sample.stop(Timer.builder("neows.response.serialization").description("Time spent writing JSON responses")
+					.tag("type", body.getClass().getSimpleName()).publishPercentileHistogram()
+					.register(meterRegistry));
+		}
+	}
+
+	private static String etagOf(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			return '"' + HexFormat.of().formatHex(digest, 0, 16) + '"';
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static ResponseEntity<?> toResponse(CachedResponse cached, String ifNoneMatch) {
+		if (matches(ifNoneMatch, cached.etag())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag())
+					.cacheControl(cached.cacheControl()).build();
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(cached.etag())
+				.cacheControl(cached.cacheControl()).body(cached.body());
+	}
+
+	/**
+	 * @return whether an {@code If-None-Match} header lists the given tag. Weak
+	 *         tags match too, as the comparison for {@code If-None-Match} is weak.
+	 */
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void count(String result) {
+		Counter.builder("neows.response.cache").description("JSON responses served from the cache or computed")
+				.tag("result", result).register(meterRegistry).increment();
+	}
+}
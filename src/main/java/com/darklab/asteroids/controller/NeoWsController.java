@@ -1,26 +1,50 @@
 package com.darklab.asteroids.controller;
 
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 
 import com.darklab.asteroids.dto.Diameter;
+import com.darklab.asteroids.dto.HistogramDTO;
+import com.darklab.asteroids.dto.QuantilesDTO;
+import com.darklab.asteroids.dto.SummaryDTO;
+import com.darklab.asteroids.service.ApproachColumnarWriter;
+import com.darklab.asteroids.service.NeoWsQuotaExceededException;
 import com.darklab.asteroids.service.NeoWsService;
+import com.darklab.asteroids.service.ResultWindow;
+import com.darklab.asteroids.service.SortedApproaches;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 public class NeoWsController {
+	private static final String INVALID_WINDOW_MESSAGE = "Invalid offset, limit or order. "
+			+ "Use non-negative numbers and 'asc' or 'desc'.";
 
 	@Autowired
 	private NeoWsService neoWsService;
 
+	@Autowired
+	private JsonResponseCache responseCache;
+
+	@Autowired
+	private Clock clock;
+
 	@GetMapping("/")
 	public ModelAndView index() {
 		return new ModelAndView("index");
@@ -28,41 +52,119 @@ public class NeoWsController {
 
 	@GetMapping("/listMaxMinDiameter")
 	public ModelAndView listMaxMinDiameter(@RequestParam String start_date, @RequestParam String end_date) {
-		Optional<Object> result = fetchDataAndExtract(start_date, end_date, "maxMinDiameter", false);
+		Optional<Object> result = fetchDataAndExtract(start_date, end_date, "maxMinDiameter");
 		ModelAndView modelAndView = new ModelAndView("index");
 		modelAndView.addObject("result", result.orElseGet(ArrayList::new));
 		return modelAndView;
 	}
 
 	@GetMapping("/listMaxMinDiameterJson")
-	public ResponseEntity<?> listMaxMinDiameterJson(@RequestParam String start_date, @RequestParam String end_date) {
-		return handleResponse(fetchDataAndExtract(start_date, end_date, "maxMinDiameter", true));
+	public CompletableFuture<ResponseEntity<?>> listMaxMinDiameterJson(@RequestParam String start_date,
+			@RequestParam String end_date, HttpServletRequest request) {
+		return cached(request, start_date, end_date,
+				() -> fetchDataAndExtractJson(start_date, end_date, "maxMinDiameter", Optional.of(ResultWindow.ALL)));
 	}
 
 	@GetMapping("/listRelativeVelocity")
-	public ModelAndView listRelativeVelocity(@RequestParam String start_date, @RequestParam String end_date) {
-		Optional<Object> result = fetchDataAndExtract(start_date, end_date, "relativeVelocity", false);
+	public ModelAndView listRelativeVelocity(@RequestParam String start_date, @RequestParam String end_date,
+			@RequestParam(required = false) Integer offset, @RequestParam(required = false) Integer limit,
+			@RequestParam(required = false) String order) {
+		Optional<Object> result = fetchDataAndExtract(start_date, end_date, "relativeVelocity",
+				ResultWindow.of(offset, limit, order));
 		ModelAndView modelAndView = new ModelAndView("index");
 		modelAndView.addObject("result", result.orElseGet(ArrayList::new));
 		return modelAndView;
 	}
 
 	@GetMapping("/listRelativeVelocityJson")
-	public ResponseEntity<?> listRelativeVelocityJson(@RequestParam String start_date, @RequestParam String end_date) {
-		return handleResponse(fetchDataAndExtract(start_date, end_date, "relativeVelocity", true));
+	public CompletableFuture<ResponseEntity<?>> listRelativeVelocityJson(@RequestParam String start_date,
+			@RequestParam String end_date, @RequestParam(required = false) Integer offset,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String order,
+			HttpServletRequest request) {
+		return cached(request, start_date, end_date, () -> fetchDataAndExtractJson(start_date, end_date,
+				"relativeVelocity", ResultWindow.of(offset, limit, order)));
+	}
+
+	@GetMapping(value = "/listRelativeVelocityJson", produces = {MediaType.APPLICATION_NDJSON_VALUE,
+			ApproachColumnarWriter.MEDIA_TYPE})
+	public CompletableFuture<ResponseEntity<?>> streamRelativeVelocity(@RequestParam String start_date,
+			@RequestParam String end_date, @RequestParam(required = false) Integer offset,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String order) {
+		return fetchApproachStream(start_date, end_date, "relativeVelocity", ResultWindow.of(offset, limit, order))
+				.thenApply(this::handleResponse);
 	}
 
 	@GetMapping("/listMissDistance")
-	public ModelAndView listMissDistance(@RequestParam String start_date, @RequestParam String end_date) {
-		Optional<Object> result = fetchDataAndExtract(start_date, end_date, "missDistances", false);
+	public ModelAndView listMissDistance(@RequestParam String start_date, @RequestParam String end_date,
+			@RequestParam(required = false) Integer offset, @RequestParam(required = false) Integer limit,
+			@RequestParam(required = false) String order) {
+		Optional<Object> result = fetchDataAndExtract(start_date, end_date, "missDistances",
+				ResultWindow.of(offset, limit, order));
 		ModelAndView modelAndView = new ModelAndView("index");
 		modelAndView.addObject("result", result.orElseGet(ArrayList::new));
 		return modelAndView;
 	}
 
 	@GetMapping("/listMissDistanceJson")
-	public ResponseEntity<?> listMissDistanceJson(@RequestParam String start_date, @RequestParam String end_date) {
-		return handleResponse(fetchDataAndExtract(start_date, end_date, "missDistances", true));
+	public CompletableFuture<ResponseEntity<?>> listMissDistanceJson(@RequestParam String start_date,
+			@RequestParam String end_date, @RequestParam(required = false) Integer offset,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String order,
+			HttpServletRequest request) {
+		return cached(request, start_date, end_date, () -> fetchDataAndExtractJson(start_date, end_date,
+				"missDistances", ResultWindow.of(offset, limit, order)));
+	}
+
+	@GetMapping(value = "/listMissDistanceJson", produces = {MediaType.APPLICATION_NDJSON_VALUE,
+			ApproachColumnarWriter.MEDIA_TYPE})
+	public CompletableFuture<ResponseEntity<?>> streamMissDistance(@RequestParam String start_date,
+			@RequestParam String end_date, @RequestParam(required = false) Integer offset,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String order) {
+		return fetchApproachStream(start_date, end_date, "missDistances", ResultWindow.of(offset, limit, order))
+				.thenApply(this::handleResponse);
+	}
+
+	@GetMapping("/listAllMetricsJson")
+	public CompletableFuture<ResponseEntity<?>> listAllMetricsJson(@RequestParam String start_date,
+			@RequestParam String end_date, @RequestParam(required = false) List<String> metrics,
+			HttpServletRequest request) {
+		return cached(request, start_date, end_date, () -> neoWsService
+				.fetchDataAndExtractAllInfoJsonAsync(start_date, end_date, metrics == null ? List.of() : metrics));
+	}
+
+	@GetMapping("/summaryJson")
+	public CompletableFuture<ResponseEntity<?>> summaryJson(@RequestParam String start_date,
+			@RequestParam String end_date, HttpServletRequest request) {
+		return cached(request, start_date, end_date,
+				() -> fetchDataAndExtractJson(start_date, end_date, "summary", Optional.of(ResultWindow.ALL)));
+	}
+
+	@GetMapping("/histogramJson")
+	public CompletableFuture<ResponseEntity<?>> histogramJson(@RequestParam String start_date,
+			@RequestParam String end_date, @RequestParam String metric,
+			@RequestParam(defaultValue = "20") int bins, @RequestParam(defaultValue = "linear") String scale,
+			HttpServletRequest request) {
+		return cached(request, start_date, end_date,
+				() -> neoWsService.fetchHistogramJsonAsync(start_date, end_date, metric, bins, scale));
+	}
+
+	@GetMapping("/quantilesJson")
+	public CompletableFuture<ResponseEntity<?>> quantilesJson(@RequestParam String start_date,
+			@RequestParam String end_date, @RequestParam String metric,
+			@RequestParam(defaultValue = "0.5,0.9,0.99") List<Double> q, HttpServletRequest request) {
+		return cached(request, start_date, end_date,
+				() -> neoWsService.fetchQuantilesJsonAsync(start_date, end_date, metric, q));
+	}
+
+	@GetMapping("/asteroid/{id}/approaches")
+	public ResponseEntity<?> asteroidApproaches(@PathVariable String id,
+			@RequestParam(defaultValue = "") String start_date, @RequestParam(defaultValue = "") String end_date) {
+		return handleResponse(neoWsService.fetchApproachesJson(id, start_date, end_date));
+	}
+
+	@ExceptionHandler(NeoWsQuotaExceededException.class)
+	@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+	public String handleQuotaExceeded(NeoWsQuotaExceededException e) {
+		return "NeoWs quota exhausted, please retry later.";
 	}
 
 	@ExceptionHandler(RuntimeException.class)
@@ -73,13 +175,75 @@ public class NeoWsController {
 		return "Internal Server Error";
 	}
 
-	private Optional<Object> fetchDataAndExtract(String start_date, String end_date, String infoType, Boolean isJson) {
-		if (isJson) {
-			return neoWsService.fetchDataAndExtractInfoJson(start_date, end_date, infoType);
-		}
+	private Optional<Object> fetchDataAndExtract(String start_date, String end_date, String infoType) {
 		List<String> result = neoWsService.fetchDataAndExtractInfo(start_date, end_date, infoType);
 		return Optional.ofNullable(result);
 	}
+
+	private Optional<Object> fetchDataAndExtract(String start_date, String end_date, String infoType,
+			Optional<ResultWindow> window) {
+		if (window.isEmpty()) {
+			return Optional.of(List.of(INVALID_WINDOW_MESSAGE));
+		}
+		List<String> result = neoWsService.fetchDataAndExtractInfo(start_date, end_date, infoType, window.get());
+		return Optional.ofNullable(result);
+	}
+
+	/**
+	 * Extracts the JSON info type without holding the request thread while the
+	 * days are fetched from NeoWs.
+	 */
+	private CompletableFuture<Optional<Object>> fetchDataAndExtractJson(String start_date, String end_date,
+			String infoType, Optional<ResultWindow> window) {
+		if (window.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.of(INVALID_WINDOW_MESSAGE));
+		}
+		return neoWsService.fetchDataAndExtractInfoJsonAsync(start_date, end_date, infoType, window.get());
+	}
+
+	/**
+	 * Prepares the sorted approaches to be streamed in the format the client
+	 * accepts. Streams are not cached, since they are meant for results too
+	 * large to hold.
+	 */
+	private CompletableFuture<Optional<Object>> fetchApproachStream(String start_date, String end_date,
+			String infoType, Optional<ResultWindow> window) {
+		if (window.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.of(INVALID_WINDOW_MESSAGE));
+		}
+		return neoWsService.fetchSortedApproachesAsync(start_date, end_date, infoType, window.get());
+	}
+
+	/**
+	 * Serves the JSON result from the {@link JsonResponseCache}, extracting it
+	 * only on a miss. Results of ranges that end before today are immutable.
+	 */
+	private CompletableFuture<ResponseEntity<?>> cached(HttpServletRequest request, String start_date,
+			String end_date, Supplier<CompletableFuture<Optional<Object>>> fetch) {
+		return responseCache.serve(request, isPast(start_date, end_date),
+				() -> fetch.get().thenApply(this::handleResponse));
+	}
+
+	/**
+	 * @return whether the last day of the range is before today, by the clock
+	 *         the service uses. An empty date stands for the other one, as in the
+	 *         service, and a range without dates starts today.
+	 */
+	private boolean isPast(String start_date, String end_date) {
+		try {
+			LocalDate last = null;
+			for (String date : List.of(start_date, end_date)) {
+				if (!date.isEmpty()) {
+					LocalDate parsed = LocalDate.parse(date);
+					last = last == null || parsed.isAfter(last) ? parsed : last;
+				}
+			}
+			return last != null && last.isBefore(LocalDate.now(clock));
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
 	private ResponseEntity<?> handleResponse(Optional<Object> optionalResult) {
 		if (optionalResult.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.NO_CONTENT).body("No data available for the given date range.");
@@ -96,6 +260,15 @@ public class NeoWsController {
 		if (result instanceof Diameter) { // Specific to Diameter, may be removed if not needed in future methods
 			return ResponseEntity.ok(result);
 		}
+		if (result instanceof Map<?, ?>) {
+			return ResponseEntity.ok(result);
+		}
+		if (result instanceof HistogramDTO || result instanceof SummaryDTO || result instanceof QuantilesDTO) {
+			return ResponseEntity.ok(result);
+		}
+		if (result instanceof SortedApproaches) { // Encoded by the converter matching the Accept header
+			return ResponseEntity.ok(result);
+		}
 		// For any other unexpected data types or errors
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred.");
 	}
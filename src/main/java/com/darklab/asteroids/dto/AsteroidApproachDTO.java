@@ -0,0 +1,60 @@
+package com.darklab.asteroids.dto;
+
+/**
+ * One close approach of an asteroid, as reported by the feed of a day.
+ */
+public class AsteroidApproachDTO {
+	private String id;
+	private String name;
+	private String date;
+	private String closeApproachDate;
+	private String orbitingBody;
+	private Double velocity;
+	private Double distance;
+
+	public AsteroidApproachDTO(String id, String name, String date, String closeApproachDate, String orbitingBody,
+			Double velocity, Double distance) {
+		this.id = id;
+		this.name = name;
+		this.date = date;
+		this.closeApproachDate = closeApproachDate;
+		this.orbitingBody = orbitingBody;
+		this.velocity = velocity;
+		this.distance = distance;
+	}
+
+	@Override
+	public String toString() {
+		return "AsteroidApproachDTO{" + "id='" + id + '\'' + ", name='" + name + '\'' + ", date='" + date + '\''
+				+ ", closeApproachDate='" + closeApproachDate + '\'' + ", orbitingBody='" + orbitingBody + '\''
+				+ ", velocity=" + velocity + ", distance=" + distance + '}';
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDate() {
+		return date;
+	}
+
+	public String getCloseApproachDate() {
+		return closeApproachDate;
+	}
+
+	public String getOrbitingBody() {
+		return orbitingBody;
+	}
+
+	public Double getVelocity() {
+		return velocity;
+	}
+
+	public Double getDistance() {
+		return distance;
+	}
+}
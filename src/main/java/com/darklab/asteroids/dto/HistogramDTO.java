@@ -0,0 +1,78 @@
+package com.darklab.asteroids.dto;
+
+import java.util.List;
+
+/**
+ * Binned distribution and summary statistics of one close approach metric.
+ * <p>
+ * Bin {@code i} counts the values from {@code binEdges[i]} inclusive to
+ * {@code binEdges[i + 1]} exclusive, the last bin also holding the maximum.
+ * The statistics are {@code null} when there is no value.
+ * </p>
+ */
+public class HistogramDTO {
+	private String metric;
+	private String scale;
+	private long count;
+	private Double min;
+	private Double max;
+	private Double mean;
+	private Double standardDeviation;
+	private List<Double> binEdges;
+	private long[] counts;
+
+	public HistogramDTO(String metric, String scale, long count, Double min, Double max, Double mean,
+			Double standardDeviation, List<Double> binEdges, long[] counts) {
+		this.metric = metric;
+		this.scale = scale;
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.mean = mean;
+		this.standardDeviation = standardDeviation;
+		this.binEdges = binEdges;
+		this.counts = counts;
+	}
+
+	@Override
+	public String toString() {
+		return "HistogramDTO{" + "metric='" + metric + '\'' + ", scale='" + scale + '\'' + ", count=" + count
+				+ ", min=" + min + ", max=" + max + ", mean=" + mean + ", bins=" + counts.length + '}';
+	}
+
+	public String getMetric() {
+		return metric;
+	}
+
+	public String getScale() {
+		return scale;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public Double getMin() {
+		return min;
+	}
+
+	public Double getMax() {
+		return max;
+	}
+
+	public Double getMean() {
+		return mean;
+	}
+
+	public Double getStandardDeviation() {
+		return standardDeviation;
+	}
+
+	public List<Double> getBinEdges() {
+		return binEdges;
+	}
+
+	public long[] getCounts() {
+		return counts;
+	}
+}
@@ -0,0 +1,59 @@
+package com.darklab.asteroids.dto;
+
+import java.util.Map;
+
+/**
+ * Estimated quantiles of one close approach metric.
+ * <p>
+ * Each estimate is within {@code relativeAccuracy} times the exact quantile.
+ * The minimum and maximum are exact. The values are {@code null} when there
+ * is no value.
+ * </p>
+ */
+public class QuantilesDTO {
+	private String metric;
+	private long count;
+	private Double min;
+	private Double max;
+	private double relativeAccuracy;
+	private Map<String, Double> quantiles;
+
+	public QuantilesDTO(String metric, long count, Double min, Double max, double relativeAccuracy,
+			Map<String, Double> quantiles) {
+		this.metric = metric;
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.relativeAccuracy = relativeAccuracy;
+		this.quantiles = quantiles;
+	}
+
+	@Override
+	public String toString() {
+		return "QuantilesDTO{" + "metric='" + metric + '\'' + ", count=" + count + ", quantiles=" + quantiles + '}';
+	}
+
+	public String getMetric() {
+		return metric;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public Double getMin() {
+		return min;
+	}
+
+	public Double getMax() {
+		return max;
+	}
+
+	public double getRelativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	public Map<String, Double> getQuantiles() {
+		return quantiles;
+	}
+}
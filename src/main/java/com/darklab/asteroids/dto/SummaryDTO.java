@@ -0,0 +1,78 @@
+package com.darklab.asteroids.dto;
+
+import java.util.List;
+
+public class SummaryDTO {
+	private int objectCount;
+	private int hazardousCount;
+	private int approachCount;
+	private Double maxDiameter;
+	private List<String> maxDiameterNames;
+	private Double minDiameter;
+	private List<String> minDiameterNames;
+	private Double meanDiameter;
+	private Double meanVelocity;
+	private Double meanMissDistance;
+
+	public SummaryDTO(int objectCount, int hazardousCount, int approachCount, Double maxDiameter,
+			List<String> maxDiameterNames, Double minDiameter, List<String> minDiameterNames, Double meanDiameter,
+			Double meanVelocity, Double meanMissDistance) {
+		this.objectCount = objectCount;
+		this.hazardousCount = hazardousCount;
+		this.approachCount = approachCount;
+		this.maxDiameter = maxDiameter;
+		this.maxDiameterNames = maxDiameterNames;
+		this.minDiameter = minDiameter;
+		this.minDiameterNames = minDiameterNames;
+		this.meanDiameter = meanDiameter;
+		this.meanVelocity = meanVelocity;
+		this.meanMissDistance = meanMissDistance;
+	}
+
+	@Override
+	public String toString() {
+		return "SummaryDTO{" + "objectCount=" + objectCount + ", hazardousCount=" + hazardousCount
+				+ ", approachCount=" + approachCount + ", maxDiameter=" + maxDiameter + ", minDiameter="
+				+ minDiameter + '}';
+	}
+
+	public int getObjectCount() {
+		return objectCount;
+	}
+
+	public int getHazardousCount() {
+		return hazardousCount;
+	}
+
+	public int getApproachCount() {
+		return approachCount;
+	}
+
+	public Double getMaxDiameter() {
+		return maxDiameter;
+	}
+
+	public List<String> getMaxDiameterNames() {
+		return maxDiameterNames;
+	}
+
+	public Double getMinDiameter() {
+		return minDiameter;
+	}
+
+	public List<String> getMinDiameterNames() {
+		return minDiameterNames;
+	}
+
+	public Double getMeanDiameter() {
+		return meanDiameter;
+	}
+
+	public Double getMeanVelocity() {
+		return meanVelocity;
+	}
+
+	public Double getMeanMissDistance() {
+		return meanMissDistance;
+	}
+}
@@ -0,0 +1,86 @@
+package com.darklab.asteroids.entity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+
+/**
+ * Progress of a history backfill: every day from {@code startDate} up to the
+ * day before {@code nextDate} has been stored or skipped.
+ */
+@Entity
+@Table(name = "backfill_checkpoint")
+public class BackfillCheckpointEntity {
+	@Id
+	private String name;
+
+	@Column(name = "start_date", nullable = false)
+	private LocalDate startDate;
+
+	@Column(name = "next_date", nullable = false)
+	private LocalDate nextDate;
+
+	@Column(name = "fetched_days", nullable = false)
+	private long fetchedDays;
+
+	@Column(name = "skipped_days", nullable = false)
+	private long skippedDays;
+
+	@Column(name = "updated_at", nullable = false)
+	private Instant updatedAt;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public void setStartDate(LocalDate startDate) {
+		this.startDate = startDate;
+	}
+
+	public LocalDate getNextDate() {
+		return nextDate;
+	}
+
+	public void setNextDate(LocalDate nextDate) {
+		this.nextDate = nextDate;
+	}
+
+	public long getFetchedDays() {
+		return fetchedDays;
+	}
+
+	public void setFetchedDays(long fetchedDays) {
+		this.fetchedDays = fetchedDays;
+	}
+
+	public long getSkippedDays() {
+		return skippedDays;
+	}
+
+	public void setSkippedDays(long skippedDays) {
+		this.skippedDays = skippedDays;
+	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(Instant updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "BackfillCheckpointEntity{" + "name=" + name + ", startDate=" + startDate + ", nextDate=" + nextDate
+				+ ", fetchedDays=" + fetchedDays + ", skippedDays=" + skippedDays + '}';
+	}
+}
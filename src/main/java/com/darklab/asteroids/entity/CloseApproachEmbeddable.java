@@ -0,0 +1,58 @@
+package com.darklab.asteroids.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+@Embeddable
+public class CloseApproachEmbeddable {
+	@Column(name = "close_approach_date_full")
+	private String closeApproachDateFull;
+
+	@Column(name = "velocity_km_per_second")
+	private Double velocityKmPerSecond;
+
+	@Column(name = "miss_distance_km")
+	private Double missDistanceKm;
+
+	@Column(name = "orbiting_body")
+	private String orbitingBody;
+
+	public String getCloseApproachDateFull() {
+		return closeApproachDateFull;
+	}
+
+	public void setCloseApproachDateFull(String closeApproachDateFull) {
+		this.closeApproachDateFull = closeApproachDateFull;
+	}
+
+	public Double getVelocityKmPerSecond() {
+		return velocityKmPerSecond;
+	}
+
+	public void setVelocityKmPerSecond(Double velocityKmPerSecond) {
+		this.velocityKmPerSecond = velocityKmPerSecond;
+	}
+
+	public Double getMissDistanceKm() {
+		return missDistanceKm;
+	}
+
+	public void setMissDistanceKm(Double missDistanceKm) {
+		this.missDistanceKm = missDistanceKm;
+	}
+
+	public String getOrbitingBody() {
+		return orbitingBody;
+	}
+
+	public void setOrbitingBody(String orbitingBody) {
+		this.orbitingBody = orbitingBody;
+	}
+
+	@Override
+	public String toString() {
+		return "CloseApproachEmbeddable{" + "closeApproachDateFull='" + closeApproachDateFull + '\''
+				+ ", velocityKmPerSecond=" + velocityKmPerSecond + ", missDistanceKm=" + missDistanceKm
+				+ ", orbitingBody='" + orbitingBody + '\'' + '}';
+	}
+}
@@ -0,0 +1,54 @@
+package com.darklab.asteroids.entity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "neo_day")
+public class NeoDayEntity {
+	@Id
+	@Column(name = "feed_date")
+	private LocalDate feedDate;
+
+	@Column(name = "fetched_at", nullable = false)
+	private Instant fetchedAt;
+
+	@OneToMany(mappedBy = "day", cascade = CascadeType.ALL, orphanRemoval = true)
+	@OrderColumn(name = "position")
+	private List<NeoObjectEntity> objects = new ArrayList<>();
+
+	public LocalDate getFeedDate() {
+		return feedDate;
+	}
+
+	public void setFeedDate(LocalDate feedDate) {
+		this.feedDate = feedDate;
+	}
+
+	public Instant getFetchedAt() {
+		return fetchedAt;
+	}
+
+	public void setFetchedAt(Instant fetchedAt) {
+		this.fetchedAt = fetchedAt;
+	}
+
+	public List<NeoObjectEntity> getObjects() {
+		return objects;
+	}
+
+	public void addObject(NeoObjectEntity object) {
+		object.setDay(this);
+		objects.add(object);
+	}
+
+	@Override
+	public String toString() {
+		return "NeoDayEntity{" + "feedDate=" + feedDate + ", fetchedAt=" + fetchedAt + ", objects=" + objects.size()
+				+ '}';
+	}
+}
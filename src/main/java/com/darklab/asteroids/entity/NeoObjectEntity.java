@@ -0,0 +1,116 @@
+package com.darklab.asteroids.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.*;
+
+/**
+ * A near-earth object as reported for one day of the NeoWs feed. Only the
+ * kilometre based figures read by the extractors are stored. The NeoWs id is
+ * indexed, so the approaches of one asteroid are found without a scan.
+ */
+@Entity
+@Table(name = "neo_object", indexes = @Index(name = "idx_neo_object_neo_id", columnList = "neo_id"))
+public class NeoObjectEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "feed_date", nullable = false)
+	private NeoDayEntity day;
+
+	@Column(name = "neo_id")
+	private String neoId;
+
+	private String name;
+
+	@Column(name = "absolute_magnitude_h")
+	private double absoluteMagnitudeH;
+
+	@Column(name = "diameter_min_km")
+	private Double diameterMinKm;
+
+	@Column(name = "diameter_max_km")
+	private Double diameterMaxKm;
+
+	@Column(name = "potentially_hazardous")
+	private Boolean potentiallyHazardous;
+
+	@ElementCollection
+	@CollectionTable(name = "close_approach", joinColumns = @JoinColumn(name = "neo_object_id"))
+	@OrderColumn(name = "position")
+	private List<CloseApproachEmbeddable> closeApproaches = new ArrayList<>();
+
+	public Long getId() {
+		return id;
+	}
+
+	public NeoDayEntity getDay() {
+		return day;
+	}
+
+	public void setDay(NeoDayEntity day) {
+		this.day = day;
+	}
+
+	public String getNeoId() {
+		return neoId;
+	}
+
+	public void setNeoId(String neoId) {
+		this.neoId = neoId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public double getAbsoluteMagnitudeH() {
+		return absoluteMagnitudeH;
+	}
+
+	public void setAbsoluteMagnitudeH(double absoluteMagnitudeH) {
+		this.absoluteMagnitudeH = absoluteMagnitudeH;
+	}
+
+	public Double getDiameterMinKm() {
+		return diameterMinKm;
+	}
+
+	public void setDiameterMinKm(Double diameterMinKm) {
+		this.diameterMinKm = diameterMinKm;
+	}
+
+	public Double getDiameterMaxKm() {
+		return diameterMaxKm;
+	}
+
+	public void setDiameterMaxKm(Double diameterMaxKm) {
+		this.diameterMaxKm = diameterMaxKm;
+	}
+
+	public Boolean getPotentiallyHazardous() {
+		return potentiallyHazardous;
+	}
+
+	public void setPotentiallyHazardous(Boolean potentiallyHazardous) {
+		this.potentiallyHazardous = potentiallyHazardous;
+	}
+
+	public List<CloseApproachEmbeddable> getCloseApproaches() {
+		return closeApproaches;
+	}
+
+	@Override
+	public String toString() {
+		return "NeoObjectEntity{" + "id=" + id + ", neoId='" + neoId + '\'' + ", name='" + name + '\''
+				+ ", diameterMinKm=" + diameterMinKm + ", diameterMaxKm=" + diameterMaxKm + ", potentiallyHazardous="
+				+ potentiallyHazardous + ", closeApproaches=" + closeApproaches + '}';
+	}
+}
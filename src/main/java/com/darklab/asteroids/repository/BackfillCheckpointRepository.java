@@ -0,0 +1,8 @@
+package com.darklab.asteroids.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.darklab.asteroids.entity.BackfillCheckpointEntity;
+
+public interface BackfillCheckpointRepository extends JpaRepository<BackfillCheckpointEntity, String> {
+}
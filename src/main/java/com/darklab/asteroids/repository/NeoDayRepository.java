@@ -0,0 +1,23 @@
+package com.darklab.asteroids.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.darklab.asteroids.entity.NeoDayEntity;
+
+public interface NeoDayRepository extends JpaRepository<NeoDayEntity, LocalDate> {
+
+	@Query("select distinct d from NeoDayEntity d left join fetch d.objects where d.feedDate in :days")
+	List<NeoDayEntity> findWithObjectsByFeedDateIn(@Param("days") Collection<LocalDate> days);
+
+	@Query("select d.feedDate from NeoDayEntity d where d.feedDate in :days")
+	List<LocalDate> findFeedDatesIn(@Param("days") Collection<LocalDate> days);
+
+	@Query("select d.feedDate from NeoDayEntity d order by d.feedDate")
+	List<LocalDate> findAllFeedDates();
+}
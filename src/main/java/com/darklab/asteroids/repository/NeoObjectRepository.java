@@ -0,0 +1,18 @@
+package com.darklab.asteroids.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.darklab.asteroids.entity.NeoObjectEntity;
+
+public interface NeoObjectRepository extends JpaRepository<NeoObjectEntity, Long> {
+
+	@Query("select distinct o from NeoObjectEntity o join fetch o.day d left join fetch o.closeApproaches "
+			+ "where o.neoId = :neoId and d.feedDate between :start and :end order by d.feedDate")
+	List<NeoObjectEntity> findWithApproachesByNeoIdAndFeedDateBetween(@Param("neoId") String neoId,
+			@Param("start") LocalDate start, @Param("end") LocalDate end);
+}
@@ -0,0 +1,578 @@
+package com.darklab.asteroids.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.darklab.asteroids.dto.CloseApproachData;
+import com.darklab.asteroids.dto.NeoObject;
+
+/**
+ * Append-only archive of the close approaches of past days, in fixed-width
+ * binary segments read through memory mappings.
+ *
+ * <p>
+ * The archive lives under {@code neows.archive.dir} and is partitioned by
+ * month. Each month has three files:
+ * </p>
+ * <ul>
+ * <li>{@code YYYY-MM.seg}: one {@value #RECORD_BYTES}-byte record per close
+ * approach, the records of a day being contiguous;</li>
+ * <li>{@code YYYY-MM.names}: the distinct asteroid names of the month, each a
+ * uint16 byte length then UTF-8 bytes, referred to by offset from the
+ * records;</li>
+ * <li>{@code YYYY-MM.idx}: a {@value #INDEX_BYTES}-byte index holding the
+ * committed lengths of the two other files and, for each day of the month,
+ * its first record and record count.</li>
+ * </ul>
+ *
+ * <pre>
+ * record offset  size  content (little-endian)
+ * 0              4     day, as days since 1970-01-01 (int32)
+ * 4              4     offset of the asteroid name in the names file (int32)
+ * 8              8     NeoWs id of the asteroid, or -1 if not numeric (int64)
+ * 16             8     relative velocity in km/s, NaN if unknown (float64)
+ * 24             8     miss distance in km, NaN if unknown (float64)
+ * 32             8     maximum estimated diameter in km, NaN if unknown (float64)
+ * 40             8     minimum estimated diameter in km, NaN if unknown (float64)
+ * 48             4     flags, bit 0 set if potentially hazardous (int32)
+ * 52             4     reserved, 0
+ * </pre>
+ *
+ * <p>
+ * Only days strictly before today are archived, each once, as NeoWs does not
+ * revise them. A day is appended by writing its records and new names past the
+ * committed lengths, then replacing the index through an atomic rename; a crash
+ * in between leaves bytes past the committed lengths, which are truncated the
+ * next time the month is opened. A month whose index cannot be read anyway is
+ * skipped with a warning and archived again, rather than keeping the
+ * application from starting.
+ * </p>
+ *
+ * <p>
+ * Opening the archive only reads the indexes and maps the segments, whatever
+ * their size. Scans read the records straight from the mappings through a
+ * {@link Cursor}, without allocating per record, so multi-year ranges are
+ * scanned off the heap. Readers see an immutable snapshot of each month, which
+ * appends replace.
+ * </p>
+ */
+@Component
+public class ApproachArchive {
+	public static final int RECORD_BYTES = 56;
+	public static final int INDEX_BYTES = 16 + 31 * 2 * Integer.BYTES;
+	private static final byte[] INDEX_MAGIC = {'N', 'E', 'O', 'I'};
+	private static final int VERSION = 1;
+	private static final int HAZARDOUS = 1;
+	private static final Pattern INDEX_NAME = Pattern.compile("\\d{4}-\\d{2}\\.idx");
+	private static final Logger logger = LoggerFactory.getLogger(ApproachArchive.class);
+
+	/**
+	 * The mapped files of a month, as committed when they were mapped.
+	 */
+	private record Segment(YearMonth month, ByteBuffer records, ByteBuffer names, int[] dayFirst,
+			int[] dayCount) {
+
+		boolean contains(LocalDate day) {
+			return dayFirst[day.getDayOfMonth() - 1] >= 0;
+		}
+
+		int recordCount() {
+			return records.limit() / RECORD_BYTES;
+		}
+	}
+
+	private final Path dir;
+	private final Clock clock;
+	private final NavigableMap<YearMonth, Segment> segments = new ConcurrentSkipListMap<>();
+
+	@Autowired
+	public ApproachArchive(@Value("${neows.archive.dir:${neows.data-dir:./data}/archive}") String dir,
+			Clock clock) {
+		this(Path.of(dir), clock);
+	}
+
+	public ApproachArchive(Path dir, Clock clock) {
+		this.dir = dir;
+		this.clock = clock;
+		try {
+			Files.createDirectories(dir);
+			try (Stream<Path> files = Files.list(dir)) {
+				for (Path index : files.filter(file -> file.getFileName().toString().endsWith(".idx")).toList()) {
+					YearMonth month = monthOf(index);
+					if (month != null) {
+						openOrSetAside(month);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot open the approach archive in " + dir, e);
+		}
+		logger.info("Mapped {} archive segments holding {} records from {}", segments.size(), getRecordCount(), dir);
+	}
+
+	/**
+	 * Maps a month, or sets its index aside if it cannot be read, so a damaged
+	 * month does not keep the archive from opening. The month is then missing
+	 * from the archive until its days are archived again, from the day store at
+	 * startup or as they are fetched, which rewrites its files from the start.
+	 */
+	private void openOrSetAside(YearMonth month) throws IOException {
+		try {
+			segments.put(month, open(month));
+		} catch (IOException e) {
+			Path setAside = dir.resolve(month + ".idx.corrupt");
+			logger.warn("Skipping archive month {}: {}. Moving its index to {}", month, e.getMessage(), setAside);
+			Files.move(indexFile(month), setAside, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * @return the month of an index file, or {@code null} if its name is not
+	 *         that of an index, in which case it is ignored.
+	 */
+	private static YearMonth monthOf(Path index) {
+		String name = index.getFileName().toString();
+		if (INDEX_NAME.matcher(name).matches()) {
+			try {
+				return YearMonth.parse(name.substring(0, name.length() - ".idx".length()));
+			} catch (DateTimeParseException e) {
+				// Not a valid month, such as 2023-13.
+			}
+		}
+		logger.warn("Ignoring {}, which is not named like an archive index (YYYY-MM.idx)", index);
+		return null;
+	}
+
+	/**
+	 * Archives the given days, skipping days that are not yet immutable (today or
+	 * later) and days already archived or listed earlier in the batch, so
+	 * appending the same days again is harmless. A failure to write is logged
+	 * and leaves the month as it was, since the day store remains the reference
+	 * the days can be archived again from.
+	 *
+	 * @param days
+	 *            The days to archive.
+	 * @return whether every month of the days was written.
+	 */
+	public synchronized boolean append(Collection<NeoWsDay> days) {
+		LocalDate today = LocalDate.now(clock);
+		Map<YearMonth, List<NeoWsDay>> byMonth = new TreeMap<>();
+		Set<LocalDate> batchDates = new HashSet<>();
+		for (NeoWsDay day : days) {
+			if (day.date().isBefore(today) && !contains(day.date()) && batchDates.add(day.date())) {
+				byMonth.computeIfAbsent(YearMonth.from(day.date()), month -> new ArrayList<>()).add(day);
+			}
+		}
+		boolean written = true;
+		for (Map.Entry<YearMonth, List<NeoWsDay>> entry : byMonth.entrySet()) {
+			try {
+				segments.put(entry.getKey(), appendToMonth(entry.getKey(), entry.getValue()));
+			} catch (IOException e) {
+				logger.warn("Cannot archive {} days of {}: {}", entry.getValue().size(), entry.getKey(),
+						e.getMessage());
+				written = false;
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * @return whether the given day is archived.
+	 */
+	public boolean contains(LocalDate day) {
+		Segment segment = segments.get(YearMonth.from(day));
+		return segment != null && segment.contains(day);
+	}
+
+	/**
+	 * @return whether every day of the given range is archived.
+	 */
+	public boolean covers(DateRange range) {
+		for (LocalDate day = range.start(); !day.isAfter(range.end()); day = day.plusDays(1)) {
+			if (!contains(day)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Opens a cursor over the archived close approaches of the given range, in
+	 * ascending day order. Days that are not archived are skipped.
+	 */
+	public Cursor cursor(DateRange range) {
+		return new Cursor(
+				List.copyOf(segments.subMap(YearMonth.from(range.start()), true, YearMonth.from(range.end()), true)
+						.values()),
+				range);
+	}
+
+	/**
+	 * Passes the known values of a metric over the given range to the consumer,
+	 * straight from the mapped segments.
+	 *
+	 * @return The number of values passed.
+	 */
+	public long scan(DateRange range, ApproachMetric metric, DoubleConsumer consumer) {
+		Cursor cursor = cursor(range);
+		long count = 0;
+		while (cursor.next()) {
+			double value = cursor.value(metric);
+			if (!Double.isNaN(value)) {
+				consumer.accept(value);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return The number of archived close approaches.
+	 */
+	public long getRecordCount() {
+		return segments.values().stream().mapToLong(Segment::recordCount).sum();
+	}
+
+	/**
+	 * @return The number of archived months.
+	 */
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Forward-only view over the records of a range. The accessors read the
+	 * current record from the mapping; only {@link #name()} allocates.
+	 */
+	public static final class Cursor {
+		private final List<Segment> segments;
+		private final DateRange range;
+		private int segmentIndex = -1;
+		private Segment segment;
+		private int dayOfMonth;
+		private int lastDayOfMonth;
+		private int position;
+		private int dayEnd;
+
+		private Cursor(List<Segment> segments, DateRange range) {
+			this.segments = segments;
+			this.range = range;
+		}
+
+		/**
+		 * Moves to the next record.
+		 *
+		 * @return false once the records of the range are exhausted.
+		 */
+		public boolean next() {
+			position += RECORD_BYTES;
+			while (segment == null || position >= dayEnd) {
+				if (segment == null || dayOfMonth >= lastDayOfMonth) {
+					if (++segmentIndex >= segments.size()) {
+						segment = null;
+						position = dayEnd = 0;
+						return false;
+					}
+					segment = segments.get(segmentIndex);
+					YearMonth month = segment.month();
+					dayOfMonth = month.equals(YearMonth.from(range.start())) ? range.start().getDayOfMonth() - 1 : 0;
+					lastDayOfMonth = month.equals(YearMonth.from(range.end()))
+							? range.end().getDayOfMonth()
+							: month.lengthOfMonth();
+				} else {
+					dayOfMonth++;
+				}
+				if (dayOfMonth < lastDayOfMonth && segment.dayFirst()[dayOfMonth] >= 0) {
+					position = segment.dayFirst()[dayOfMonth] * RECORD_BYTES;
+					dayEnd = position + segment.dayCount()[dayOfMonth] * RECORD_BYTES;
+				} else {
+					position = dayEnd = 0;
+				}
+			}
+			return true;
+		}
+
+		public long epochDay() {
+			return segment.records().getInt(position);
+		}
+
+		public LocalDate date() {
+			return LocalDate.ofEpochDay(epochDay());
+		}
+
+		/**
+		 * @return The NeoWs id of the asteroid, or -1 if it is not numeric.
+		 */
+		public long neoId() {
+			return segment.records().getLong(position + 8);
+		}
+
+		public String name() {
+			return readName(segment.names(), nameOffset());
+		}
+
+		/**
+		 * @return The offset of the asteroid name in the names file of the
+		 *         month, the same for every record of that name in the month.
+		 */
+		int nameOffset() {
+			return segment.records().getInt(position + 4);
+		}
+
+		public double velocity() {
+			return segment.records().getDouble(position + 16);
+		}
+
+		public double missDistance() {
+			return segment.records().getDouble(position + 24);
+		}
+
+		public double maxDiameter() {
+			return segment.records().getDouble(position + 32);
+		}
+
+		public double minDiameter() {
+			return segment.records().getDouble(position + 40);
+		}
+
+		public boolean hazardous() {
+			return (segment.records().getInt(position + 48) & HAZARDOUS) != 0;
+		}
+
+		/**
+		 * @return The value of the metric for the current record, NaN if unknown.
+		 */
+		public double value(ApproachMetric metric) {
+			return switch (metric) {
+				case RELATIVE_VELOCITY -> velocity();
+				case MISS_DISTANCE -> missDistance();
+				case DIAMETER -> maxDiameter();
+			};
+		}
+	}
+
+	private Segment appendToMonth(YearMonth month, List<NeoWsDay> days) throws IOException {
+		Segment current = segments.get(month);
+		int[] dayFirst = new int[31];
+		int[] dayCount = new int[31];
+		Arrays.fill(dayFirst, -1);
+		int recordCount = 0;
+		int namesLength = 0;
+		Map<String, Integer> nameOffsets = new HashMap<>();
+		if (current != null) {
+			System.arraycopy(current.dayFirst(), 0, dayFirst, 0, 31);
+			System.arraycopy(current.dayCount(), 0, dayCount, 0, 31);
+			recordCount = current.recordCount();
+			namesLength = current.names().limit();
+			for (int offset = 0; offset < namesLength;) {
+				String name = readName(current.names(), offset);
+				nameOffsets.put(name, offset);
+				offset += Short.BYTES + Short.toUnsignedInt(current.names().getShort(offset));
+			}
+		}
+
+		ByteBuffer records = ByteBuffer.allocate(
+				days.stream().mapToInt(day -> approachCount(day.objects())).sum() * RECORD_BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer names = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+		int newNamesLength = namesLength;
+		for (NeoWsDay day : days) {
+			int slot = day.date().getDayOfMonth() - 1;
+			dayFirst[slot] = recordCount + records.position() / RECORD_BYTES;
+			for (NeoObject object : day.objects()) {
+				if (object.getClose_approach_data() == null) {
+					continue;
+				}
+				String name = object.getName() == null ? "" : object.getName();
+				Integer nameOffset = nameOffsets.get(name);
+				if (nameOffset == null) {
+					byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+					int length = Math.min(bytes.length, 0xFFFF);
+					if (names.remaining() < Short.BYTES + length) {
+						names = ByteBuffer.allocate(Math.max(names.capacity() * 2, names.position() + Short.BYTES
+								+ length)).order(ByteOrder.LITTLE_ENDIAN).put(names.flip());
+					}
+					nameOffset = newNamesLength;
+					names.putShort((short) length).put(bytes, 0, length);
+					newNamesLength += Short.BYTES + length;
+					nameOffsets.put(name, nameOffset);
+				}
+				for (CloseApproachData data : object.getClose_approach_data()) {
+					putRecord(records, day.date(), nameOffset, object, data);
+				}
+			}
+			dayCount[slot] = recordCount + records.position() / RECORD_BYTES - dayFirst[slot];
+		}
+		int newRecordCount = recordCount + records.position() / RECORD_BYTES;
+
+		try (FileChannel recordChannel = FileChannel.open(segmentFile(month), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+				FileChannel namesChannel = FileChannel.open(namesFile(month), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE)) {
+			writeFully(recordChannel, records.flip(), (long) recordCount * RECORD_BYTES);
+			writeFully(namesChannel, names.flip(), namesLength);
+			recordChannel.force(false);
+			namesChannel.force(false);
+		}
+		ByteBuffer index = ByteBuffer.allocate(INDEX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		index.put(INDEX_MAGIC).put((byte) VERSION).put((byte) 0).putShort((short) 0).putInt(newRecordCount)
+				.putInt(newNamesLength);
+		for (int slot = 0; slot < 31; slot++) {
+			index.putInt(dayFirst[slot]).putInt(dayCount[slot]);
+		}
+		// The index commits the append, so a crash must leave the old index or the new one, never a mix
+		Path pendingIndex = dir.resolve(month + ".idx.tmp");
+		try (FileChannel indexChannel = FileChannel.open(pendingIndex, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(indexChannel, index.flip(), 0);
+			indexChannel.force(true);
+		}
+		Files.move(pendingIndex, indexFile(month), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		logger.debug("Archived {} days of {}", days.size(), month);
+		return map(month, newRecordCount, newNamesLength, dayFirst, dayCount);
+	}
+
+	private static void putRecord(ByteBuffer records, LocalDate day, int nameOffset, NeoObject object,
+			CloseApproachData data) {
+		Double velocity = data.getRelative_velocity() == null
+				? null
+				: data.getRelative_velocity().getKilometers_per_second();
+		Double missDistance = data.getMiss_distance() == null ? null : data.getMiss_distance().getKilometers();
+		Double maxDiameter = null;
+		Double minDiameter = null;
+		if (object.getEstimated_diameter() != null && object.getEstimated_diameter().getKilometers() != null) {
+			maxDiameter = object.getEstimated_diameter().getKilometers().getEstimated_diameter_max();
+			minDiameter = object.getEstimated_diameter().getKilometers().getEstimated_diameter_min();
+		}
+		records.putInt((int) day.toEpochDay()).putInt(nameOffset).putLong(parseId(object.getId()))
+				.putDouble(toPrimitive(velocity)).putDouble(toPrimitive(missDistance))
+				.putDouble(toPrimitive(maxDiameter)).putDouble(toPrimitive(minDiameter))
+				.putInt(Boolean.TRUE.equals(object.getIs_potentially_hazardous_asteroid()) ? HAZARDOUS : 0)
+				.putInt(0);
+	}
+
+	/**
+	 * Reads the index of a month, truncates whatever was written past its
+	 * committed lengths, and maps the segment.
+	 */
+	private Segment open(YearMonth month) throws IOException {
+		ByteBuffer index = ByteBuffer.allocate(INDEX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		try (FileChannel indexChannel = FileChannel.open(indexFile(month), StandardOpenOption.READ)) {
+			while (index.hasRemaining() && indexChannel.read(index) >= 0) {
+				// Read the whole index
+			}
+		}
+		index.flip();
+		if (index.remaining() < INDEX_BYTES) {
+			throw new IOException("Truncated archive index " + indexFile(month));
+		}
+		byte[] magic = new byte[INDEX_MAGIC.length];
+		index.get(magic);
+		if (!Arrays.equals(magic, INDEX_MAGIC) || index.get() != VERSION) {
+			throw new IOException("Invalid archive index " + indexFile(month));
+		}
+		index.position(8);
+		int recordCount = index.getInt();
+		int namesLength = index.getInt();
+		int[] dayFirst = new int[31];
+		int[] dayCount = new int[31];
+		for (int slot = 0; slot < 31; slot++) {
+			dayFirst[slot] = index.getInt();
+			dayCount[slot] = index.getInt();
+		}
+		truncate(segmentFile(month), (long) recordCount * RECORD_BYTES);
+		truncate(namesFile(month), namesLength);
+		return map(month, recordCount, namesLength, dayFirst, dayCount);
+	}
+
+	private Segment map(YearMonth month, int recordCount, int namesLength, int[] dayFirst, int[] dayCount)
+			throws IOException {
+		return new Segment(month, mapReadOnly(segmentFile(month), (long) recordCount * RECORD_BYTES),
+				mapReadOnly(namesFile(month), namesLength), dayFirst, dayCount);
+	}
+
+	private static ByteBuffer mapReadOnly(Path file, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	private static void truncate(Path file, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			if (channel.size() > size) {
+				logger.warn("Truncating {} uncommitted bytes of {}", channel.size() - size, file);
+				channel.truncate(size);
+			} else if (channel.size() < size) {
+				throw new IOException(file + " is shorter than its index says");
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static String readName(ByteBuffer names, int offset) {
+		byte[] bytes = new byte[Short.toUnsignedInt(names.getShort(offset))];
+		names.get(offset + Short.BYTES, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int approachCount(List<NeoObject> objects) {
+		int count = 0;
+		for (NeoObject object : objects) {
+			count += object.getClose_approach_data() == null ? 0 : object.getClose_approach_data().size();
+		}
+		return count;
+	}
+
+	private static long parseId(String id) {
+		try {
+			return id == null ? -1 : Long.parseLong(id);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static double toPrimitive(Double value) {
+		return value == null ? Double.NaN : value;
+	}
+
+	private Path segmentFile(YearMonth month) {
+		return dir.resolve(month + ".seg");
+	}
+
+	private Path namesFile(YearMonth month) {
+		return dir.resolve(month + ".names");
+	}
+
+	private Path indexFile(YearMonth month) {
+		return dir.resolve(month + ".idx");
+	}
+}
@@ -0,0 +1,113 @@
+package com.darklab.asteroids.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes {@link SortedApproaches} in a compact columnar binary layout, served
+ * as {@value #MEDIA_TYPE}.
+ *
+ * <p>
+ * Every number is little-endian, so the columns can be mapped directly onto
+ * arrays by the client (for instance with {@code numpy.frombuffer}):
+ * </p>
+ *
+ * <pre>
+ * offset        size     content
+ * 0             4        magic "NEOC"
+ * 4             1        format version, 1
+ * 5             1        metric: 0 relative velocity (km/s), 1 miss distance (km), 2 diameter (km)
+ * 6             2        reserved, 0
+ * 8             4        n, the number of approaches (int32)
+ * 12            4        reserved, 0
+ * 16            8 * n    the values, in sort order (float64)
+ * 16 + 8n       4 * n    the index of the name of each approach in the dictionary (int32)
+ * 16 + 12n      4        m, the number of distinct names (int32)
+ * 20 + 12n      ...      the dictionary: m names, each a uint16 byte length then UTF-8 bytes
+ * </pre>
+ *
+ * <p>
+ * The values are written as the cursor produces them. Only the name indexes
+ * and the dictionary are held until the values are out.
+ * </p>
+ */
+public final class ApproachColumnarWriter {
+	public static final String MEDIA_TYPE = "application/vnd.neows.columnar";
+	public static final int VERSION = 1;
+	private static final byte[] MAGIC = {'N', 'E', 'O', 'C'};
+	private static final int BUFFER_SIZE = 8192;
+
+	private ApproachColumnarWriter() {
+	}
+
+	/**
+	 * Writes the approaches to the given stream, which is flushed but not
+	 * closed.
+	 *
+	 * @return The number of approaches written.
+	 */
+	public static int write(SortedApproaches approaches, OutputStream out) throws IOException {
+		int size = approaches.size();
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		Map<String, Integer> dictionary = new HashMap<>();
+		List<String> names = new ArrayList<>();
+		int[] nameIds = new int[size];
+
+		buffer.put(MAGIC).put((byte) VERSION).put((byte) approaches.metric().ordinal()).putShort((short) 0)
+				.putInt(size).putInt(0);
+		SortedApproachCursor cursor = approaches.cursor();
+		int written = 0;
+		while (written < size && cursor.next()) {
+			if (buffer.remaining() < Double.BYTES) {
+				drain(buffer, out);
+			}
+			buffer.putDouble(cursor.value());
+			nameIds[written++] = dictionary.computeIfAbsent(cursor.name(), name -> {
+				names.add(name);
+				return names.size() - 1;
+			});
+		}
+		if (written != size) {
+			throw new IllegalStateException("Expected " + size + " approaches, found " + written);
+		}
+		for (int nameId : nameIds) {
+			if (buffer.remaining() < Integer.BYTES) {
+				drain(buffer, out);
+			}
+			buffer.putInt(nameId);
+		}
+		if (buffer.remaining() < Integer.BYTES) {
+			drain(buffer, out);
+		}
+		buffer.putInt(names.size());
+		for (String name : names) {
+			byte[] bytes = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+			int length = Math.min(bytes.length, 0xFFFF);
+			if (buffer.remaining() < Short.BYTES + length) {
+				drain(buffer, out);
+			}
+			buffer.putShort((short) length);
+			if (length > buffer.remaining()) {
+				drain(buffer, out);
+				out.write(bytes, 0, length);
+			} else {
+				buffer.put(bytes, 0, length);
+			}
+		}
+		drain(buffer, out);
+		out.flush();
+		return written;
+	}
+
+	private static void drain(ByteBuffer buffer, OutputStream out) throws IOException {
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+}
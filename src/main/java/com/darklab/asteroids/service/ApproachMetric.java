@@ -0,0 +1,19 @@
+package com.darklab.asteroids.service;
+
+/**
+ * The per close approach figures held by {@link CloseApproachColumns}.
+ */
+public enum ApproachMetric {
+	/**
+	 * Relative velocity in kilometers per second.
+	 */
+	RELATIVE_VELOCITY,
+	/**
+	 * Miss distance in kilometers.
+	 */
+	MISS_DISTANCE,
+	/**
+	 * Maximum estimated diameter of the approaching asteroid, in kilometers.
+	 */
+	DIAMETER
+}
@@ -0,0 +1,52 @@
+package com.darklab.asteroids.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes {@link SortedApproaches} as newline-delimited JSON, one
+ * {@code {"name": ..., "<field>": ...}} object per line.
+ *
+ * <p>
+ * The records are written as the cursor produces them, so no list of DTOs is
+ * built and the heap used does not depend on the number of approaches. Output
+ * goes through the fixed-size buffer of the JSON generator; the first record
+ * is flushed on its own so clients receive data as soon as the merge starts.
+ * </p>
+ */
+public final class ApproachNdjsonWriter {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).setRootValueSeparator(null);
+
+	private ApproachNdjsonWriter() {
+	}
+
+	/**
+	 * Writes the approaches to the given stream, which is flushed but not
+	 * closed.
+	 *
+	 * @return The number of records written.
+	 */
+	public static long write(SortedApproaches approaches, OutputStream out) throws IOException {
+		SortedApproachCursor cursor = approaches.cursor();
+		int limit = approaches.window().limit();
+		long written = 0;
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+			while (written < limit && cursor.next()) {
+				generator.writeStartObject();
+				generator.writeStringField("name", cursor.name());
+				generator.writeNumberField(approaches.valueField(), cursor.value());
+				generator.writeEndObject();
+				generator.writeRaw('\n');
+				if (++written == 1) {
+					generator.flush();
+				}
+			}
+		}
+		return written;
+	}
+}
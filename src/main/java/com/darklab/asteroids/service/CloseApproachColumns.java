@@ -0,0 +1,162 @@
+package com.darklab.asteroids.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.darklab.asteroids.dto.CloseApproachData;
+import com.darklab.asteroids.dto.Diameter;
+import com.darklab.asteroids.dto.NeoObject;
+
+/**
+ * Immutable columnar copy of the close approaches of one day.
+ *
+ * <p>
+ * Each close approach is a row index into parallel primitive arrays holding its
+ * relative velocity, miss distance and asteroid diameter, plus an int id into a
+ * dictionary of asteroid names. Missing figures are stored as NaN. For every
+ * {@link ApproachMetric} a sort permutation is computed once when the columns
+ * are built, so ordered views over several days only have to merge pre-sorted
+ * runs (see {@link SortedApproachCursor}) instead of sorting boxed objects on
+ * every request.
+ * </p>
+ */
+public final class CloseApproachColumns {
+	private final String[] names;
+	private final int[] nameIds;
+	private final double[] velocities;
+	private final double[] missDistances;
+	private final double[] diameters;
+	private final int[] velocityOrder;
+	private final int[] missDistanceOrder;
+	private final int[] diameterOrder;
+
+	private CloseApproachColumns(String[] names, int[] nameIds, double[] velocities, double[] missDistances,
+			double[] diameters) {
+		this.names = names;
+		this.nameIds = nameIds;
+		this.velocities = velocities;
+		this.missDistances = missDistances;
+		this.diameters = diameters;
+		this.velocityOrder = IndexSort.sortedOrder(velocities, nameIds.length);
+		this.missDistanceOrder = IndexSort.sortedOrder(missDistances, nameIds.length);
+		this.diameterOrder = IndexSort.sortedOrder(diameters, nameIds.length);
+	}
+
+	/**
+	 * Builds the columns of the close approaches of the given objects, in
+	 * encounter order.
+	 */
+	public static CloseApproachColumns of(List<NeoObject> objects) {
+		int size = 0;
+		for (NeoObject object : objects) {
+			size += object.getClose_approach_data() == null ? 0 : object.getClose_approach_data().size();
+		}
+		Map<String, Integer> dictionary = new HashMap<>();
+		String[] names = new String[objects.size()];
+		int[] nameIds = new int[size];
+		double[] velocities = new double[size];
+		double[] missDistances = new double[size];
+		double[] diameters = new double[size];
+
+		int row = 0;
+		for (NeoObject object : objects) {
+			if (object.getClose_approach_data() == null) {
+				continue;
+			}
+			Integer nameId = dictionary.get(object.getName());
+			if (nameId == null) {
+				nameId = dictionary.size();
+				dictionary.put(object.getName(), nameId);
+				names[nameId] = object.getName();
+			}
+			double diameter = maxDiameter(object);
+			for (CloseApproachData data : object.getClose_approach_data()) {
+				nameIds[row] = nameId;
+				velocities[row] = toPrimitive(data.getRelative_velocity() == null
+						? null
+						: data.getRelative_velocity().getKilometers_per_second());
+				missDistances[row] = toPrimitive(
+						data.getMiss_distance() == null ? null : data.getMiss_distance().getKilometers());
+				diameters[row] = diameter;
+				row++;
+			}
+		}
+		return new CloseApproachColumns(Arrays.copyOf(names, dictionary.size()), nameIds, velocities, missDistances,
+				diameters);
+	}
+
+	private static double maxDiameter(NeoObject object) {
+		if (object.getEstimated_diameter() == null || object.getEstimated_diameter().getKilometers() == null) {
+			return Double.NaN;
+		}
+		Diameter kilometers = object.getEstimated_diameter().getKilometers();
+		return kilometers.getEstimated_diameter_max();
+	}
+
+	private static double toPrimitive(Double value) {
+		return value == null ? Double.NaN : value;
+	}
+
+	/**
+	 * @return the number of close approaches.
+	 */
+	public int size() {
+		return nameIds.length;
+	}
+
+	public String name(int row) {
+		return names[nameIds[row]];
+	}
+
+	public int nameId(int row) {
+		return nameIds[row];
+	}
+
+	/**
+	 * @return the distinct asteroid names referenced by {@link #nameId(int)}.
+	 */
+	public int nameCount() {
+		return names.length;
+	}
+
+	public String nameById(int nameId) {
+		return names[nameId];
+	}
+
+	/**
+	 * @return the value of the given metric for a row, or NaN if it is unknown.
+	 */
+	public double value(ApproachMetric metric, int row) {
+		return column(metric)[row];
+	}
+
+	/**
+	 * @return the rows with a known value of the given metric, ordered by
+	 *         ascending value. Rows with equal values keep their encounter order.
+	 *         The returned array must not be modified.
+	 */
+	int[] order(ApproachMetric metric) {
+		return switch (metric) {
+			case RELATIVE_VELOCITY -> velocityOrder;
+			case MISS_DISTANCE -> missDistanceOrder;
+			case DIAMETER -> diameterOrder;
+		};
+	}
+
+	/**
+	 * @return the number of rows with a known value of the given metric.
+	 */
+	public int count(ApproachMetric metric) {
+		return order(metric).length;
+	}
+
+	private double[] column(ApproachMetric metric) {
+		return switch (metric) {
+			case RELATIVE_VELOCITY -> velocities;
+			case MISS_DISTANCE -> missDistances;
+			case DIAMETER -> diameters;
+		};
+	}
+}
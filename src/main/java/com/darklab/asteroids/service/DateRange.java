@@ -0,0 +1,51 @@
+package com.darklab.asteroids.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents an inclusive range of calendar days.
+ *
+ * This immutable record is the normalized form of the {@code start_date} /
+ * {@code end_date} pair accepted by the service, and is used to key the per-day
+ * data held by {@link NeoWsService}.
+ *
+ * @param start
+ *            the first day of the range (inclusive).
+ * @param end
+ *            the last day of the range (inclusive).
+ */
+public record DateRange(LocalDate start, LocalDate end) {
+
+	/**
+	 * @return the number of days covered by this range, counting both ends.
+	 */
+	public long lengthInDays() {
+		return ChronoUnit.DAYS.between(start, end) + 1;
+	}
+
+	/**
+	 * @return every day of this range, in ascending order.
+	 */
+	public List<LocalDate> days() {
+		List<LocalDate> days = new ArrayList<>((int) lengthInDays());
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			days.add(day);
+		}
+		return days;
+	}
+
+	/**
+	 * @return whether the given day lies within this range.
+	 */
+	public boolean contains(LocalDate day) {
+		return !day.isBefore(start) && !day.isAfter(end);
+	}
+
+	@Override
+	public String toString() {
+		return start + ".." + end;
+	}
+}
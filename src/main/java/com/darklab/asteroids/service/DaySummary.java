@@ -0,0 +1,259 @@
+package com.darklab.asteroids.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalDouble;
+
+import com.darklab.asteroids.dto.CloseApproachData;
+import com.darklab.asteroids.dto.Diameter;
+import com.darklab.asteroids.dto.NeoObject;
+
+/**
+ * The statistics of a set of near-earth objects that can be combined without
+ * going back to the objects.
+ *
+ * <p>
+ * A summary is built once per day, when the day is created, and the summary
+ * of a range is the {@link #merge(Collection) merge} of the summaries of its
+ * days. Range queries on these statistics therefore cost one step per day
+ * whatever the number of asteroids. Merging keeps the encounter order of the
+ * days, so the names of the asteroids reaching the maximum and minimum
+ * diameters come out in feed order.
+ * </p>
+ *
+ * <p>
+ * A summary is immutable once returned.
+ * </p>
+ */
+public final class DaySummary {
+	/**
+	 * The summary of no object.
+	 */
+	public static final DaySummary EMPTY = new DaySummary().seal();
+
+	private int objectCount;
+	private int hazardousCount;
+	private double maxDiameter = Double.NEGATIVE_INFINITY;
+	private double minDiameter = Double.POSITIVE_INFINITY;
+	private List<String> maxDiameterNames = new ArrayList<>();
+	private List<String> minDiameterNames = new ArrayList<>();
+	private int diameterCount;
+	private double diameterSum;
+	private int approachCount;
+	private int velocityCount;
+	private double velocitySum;
+	private int missDistanceCount;
+	private double missDistanceSum;
+
+	private DaySummary() {
+	}
+
+	/**
+	 * Summarizes the given objects in a single walk.
+	 */
+	public static DaySummary of(List<NeoObject> objects) {
+		DaySummary summary = new DaySummary();
+		objects.forEach(summary::add);
+		return summary.seal();
+	}
+
+	/**
+	 * Summarizes the archived close approaches of a range in a single scan of
+	 * the mapped records, without loading the days. The archive writes the
+	 * approaches of an object together, so consecutive records of the same day
+	 * and name count as one object. Objects reported without close approaches
+	 * are not archived, so they are not counted.
+	 */
+	public static DaySummary of(ApproachArchive archive, DateRange range) {
+		DaySummary summary = new DaySummary();
+		ApproachArchive.Cursor cursor = archive.cursor(range);
+		long objectDay = Long.MIN_VALUE;
+		int objectName = -1;
+		while (cursor.next()) {
+			if (cursor.epochDay() != objectDay || cursor.nameOffset() != objectName) {
+				objectDay = cursor.epochDay();
+				objectName = cursor.nameOffset();
+				summary.addArchivedObject(cursor);
+			}
+			summary.approachCount++;
+			if (!Double.isNaN(cursor.velocity())) {
+				summary.velocityCount++;
+				summary.velocitySum += cursor.velocity();
+			}
+			if (!Double.isNaN(cursor.missDistance())) {
+				summary.missDistanceCount++;
+				summary.missDistanceSum += cursor.missDistance();
+			}
+		}
+		return summary.seal();
+	}
+
+	/**
+	 * Combines the given summaries, in order, into the summary of all their
+	 * objects.
+	 */
+	public static DaySummary merge(Collection<DaySummary> summaries) {
+		DaySummary merged = new DaySummary();
+		summaries.forEach(merged::addAll);
+		return merged.seal();
+	}
+
+	private void add(NeoObject object) {
+		objectCount++;
+		if (Boolean.TRUE.equals(object.getIs_potentially_hazardous_asteroid())) {
+			hazardousCount++;
+		}
+		Diameter kilometers = object.getEstimated_diameter() == null
+				? null
+				: object.getEstimated_diameter().getKilometers();
+		if (kilometers != null) {
+			diameterCount++;
+			diameterSum += kilometers.getEstimated_diameter_max();
+			List<String> name = Collections.singletonList(object.getName());
+			mergeMax(kilometers.getEstimated_diameter_max(), name);
+			mergeMin(kilometers.getEstimated_diameter_min(), name);
+		}
+		if (object.getClose_approach_data() == null) {
+			return;
+		}
+		for (CloseApproachData data : object.getClose_approach_data()) {
+			approachCount++;
+			if (data.getRelative_velocity() != null && data.getRelative_velocity().getKilometers_per_second() != null) {
+				velocityCount++;
+				velocitySum += data.getRelative_velocity().getKilometers_per_second();
+			}
+			if (data.getMiss_distance() != null && data.getMiss_distance().getKilometers() != null) {
+				missDistanceCount++;
+				missDistanceSum += data.getMiss_distance().getKilometers();
+			}
+		}
+	}
+
+	private void addArchivedObject(ApproachArchive.Cursor cursor) {
+		objectCount++;
+		if (cursor.hazardous()) {
+			hazardousCount++;
+		}
+		double max = cursor.maxDiameter();
+		if (Double.isNaN(max)) {
+			return;
+		}
+		diameterCount++;
+		diameterSum += max;
+		double min = cursor.minDiameter();
+		if (max >= maxDiameter || min <= minDiameter) {
+			// Names are decoded only for the objects that may reach an extreme
+			List<String> name = Collections.singletonList(cursor.name());
+			mergeMax(max, name);
+			mergeMin(min, name);
+		}
+	}
+
+	private void addAll(DaySummary other) {
+		objectCount += other.objectCount;
+		hazardousCount += other.hazardousCount;
+		diameterCount += other.diameterCount;
+		diameterSum += other.diameterSum;
+		if (!other.maxDiameterNames.isEmpty()) {
+			mergeMax(other.maxDiameter, other.maxDiameterNames);
+			mergeMin(other.minDiameter, other.minDiameterNames);
+		}
+		approachCount += other.approachCount;
+		velocityCount += other.velocityCount;
+		velocitySum += other.velocitySum;
+		missDistanceCount += other.missDistanceCount;
+		missDistanceSum += other.missDistanceSum;
+	}
+
+	private void mergeMax(double diameter, List<String> names) {
+		if (diameter > maxDiameter) {
+			maxDiameter = diameter;
+			maxDiameterNames.clear();
+		}
+		if (diameter == maxDiameter) {
+			maxDiameterNames.addAll(names);
+		}
+	}
+
+	private void mergeMin(double diameter, List<String> names) {
+		if (diameter < minDiameter) {
+			minDiameter = diameter;
+			minDiameterNames.clear();
+		}
+		if (diameter == minDiameter) {
+			minDiameterNames.addAll(names);
+		}
+	}
+
+	private DaySummary seal() {
+		maxDiameterNames = Collections.unmodifiableList(maxDiameterNames);
+		minDiameterNames = Collections.unmodifiableList(minDiameterNames);
+		return this;
+	}
+
+	public int objectCount() {
+		return objectCount;
+	}
+
+	public int hazardousCount() {
+		return hazardousCount;
+	}
+
+	public int approachCount() {
+		return approachCount;
+	}
+
+	public OptionalDouble maxDiameter() {
+		return maxDiameterNames.isEmpty() ? OptionalDouble.empty() : OptionalDouble.of(maxDiameter);
+	}
+
+	public OptionalDouble minDiameter() {
+		return minDiameterNames.isEmpty() ? OptionalDouble.empty() : OptionalDouble.of(minDiameter);
+	}
+
+	/**
+	 * @return the names of the asteroids whose maximum estimated diameter equals
+	 *         {@link #maxDiameter()}, in encounter order.
+	 */
+	public List<String> maxDiameterNames() {
+		return maxDiameterNames;
+	}
+
+	/**
+	 * @return the names of the asteroids whose minimum estimated diameter equals
+	 *         {@link #minDiameter()}, in encounter order.
+	 */
+	public List<String> minDiameterNames() {
+		return minDiameterNames;
+	}
+
+	/**
+	 * @return the mean maximum estimated diameter in kilometers of the objects
+	 *         with a known diameter.
+	 */
+	public OptionalDouble meanDiameter() {
+		return mean(diameterSum, diameterCount);
+	}
+
+	/**
+	 * @return the mean relative velocity in kilometers per second of the close
+	 *         approaches with a known velocity.
+	 */
+	public OptionalDouble meanVelocity() {
+		return mean(velocitySum, velocityCount);
+	}
+
+	/**
+	 * @return the mean miss distance in kilometers of the close approaches with a
+	 *         known miss distance.
+	 */
+	public OptionalDouble meanMissDistance() {
+		return mean(missDistanceSum, missDistanceCount);
+	}
+
+	private static OptionalDouble mean(double sum, int count) {
+		return count == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum / count);
+	}
+}
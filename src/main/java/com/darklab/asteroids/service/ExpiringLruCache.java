@@ -0,0 +1,117 @@
+package com.darklab.asteroids.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A bounded, thread-safe in-memory cache with least-recently-used eviction and
+ * a time-to-live per entry.
+ *
+ * <p>
+ * Entries are kept in access order; once the cache holds more than
+ * {@code maxEntries} entries the least recently used one is evicted. An entry
+ * older than the configured time-to-live is treated as absent and removed on
+ * the next lookup.
+ * </p>
+ *
+ * @param <K>
+ *            the type of the keys.
+ * @param <V>
+ *            the type of the cached values.
+ */
+public class ExpiringLruCache<K, V> {
+	private final int maxEntries;
+	private final Duration ttl;
+	private final Clock clock;
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	public ExpiringLruCache(int maxEntries, Duration ttl) {
+		this(maxEntries, ttl, Clock.systemUTC());
+	}
+
+	public ExpiringLruCache(int maxEntries, Duration ttl, Clock clock) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.ttl = ttl;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				return size() > ExpiringLruCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Looks up the value cached for the given key.
+	 *
+	 * @param key
+	 *            the key to look up.
+	 * @return the cached value, or an empty {@link Optional} if there is none or
+	 *         it has expired.
+	 */
+	public synchronized Optional<V> get(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		if (entry.isExpired(clock.instant())) {
+			entries.remove(key);
+			return Optional.empty();
+		}
+		return Optional.of(entry.value());
+	}
+
+	/**
+	 * Caches a value under the given key using the default time-to-live.
+	 */
+	public void put(K key, V value) {
+		put(key, value, ttl);
+	}
+
+	/**
+	 * Caches a value under the given key with a specific time-to-live, replacing
+	 * any previous value.
+	 */
+	public synchronized void put(K key, V value, Duration entryTtl) {
+		entries.put(key, new Entry<>(value, clock.instant().plus(entryTtl)));
+	}
+
+	/**
+	 * @return a snapshot of the values that have not expired, from the least to
+	 *         the most recently used. Unlike {@link #get(Object)}, it does not
+	 *         count as a use.
+	 */
+	public synchronized List<V> values() {
+		Instant now = clock.instant();
+		List<V> values = new ArrayList<>(entries.size());
+		for (Entry<V> entry : entries.values()) {
+			if (!entry.isExpired(now)) {
+				values.add(entry.value());
+			}
+		}
+		return values;
+	}
+
+	public synchronized void invalidate(K key) {
+		entries.remove(key);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private record Entry<V>(V value, Instant expiresAt) {
+		boolean isExpired(Instant now) {
+			return !now.isBefore(expiresAt);
+		}
+	}
+}
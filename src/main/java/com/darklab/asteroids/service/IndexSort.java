@@ -0,0 +1,162 @@
+package com.darklab.asteroids.service;
+
+import java.util.Arrays;
+
+/**
+ * Sorting of index permutations over primitive columns.
+ */
+final class IndexSort {
+
+	private IndexSort() {
+	}
+
+	/**
+	 * Computes the permutation that orders the first {@code count} values
+	 * ascending. NaN values mark missing data and are left out. The sort is
+	 * stable: equal values keep their index order.
+	 *
+	 * @return the indexes of the non-NaN values, ordered by value.
+	 */
+	static int[] sortedOrder(double[] values, int count) {
+		int[] order = new int[count];
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			if (!Double.isNaN(values[i])) {
+				order[size++] = i;
+			}
+		}
+		order = Arrays.copyOf(order, size);
+		mergeSort(order, new int[size], 0, size, values);
+		return order;
+	}
+
+	/**
+	 * Computes the permutation of the non-NaN values among the first
+	 * {@code count} values that falls into the given window of the sorted order.
+	 *
+	 * <p>
+	 * Ascending order is stable. Descending order is its exact reverse, so equal
+	 * values come in reverse index order. When the window is limited, only the
+	 * {@code offset + limit} best entries are kept in a bounded heap while
+	 * scanning, which costs {@code O(n log k)} instead of a full sort.
+	 * </p>
+	 *
+	 * @return the indexes of the values in the window, in window order.
+	 */
+	static int[] windowOrder(double[] values, int count, ResultWindow window) {
+		int[] order;
+		if (window.isLimited()) {
+			order = selectBest(values, count, window.end(), window.descending());
+		} else {
+			order = sortedOrder(values, count);
+		}
+		if (window.descending()) {
+			reverse(order);
+		}
+		int from = Math.min(window.offset(), order.length);
+		int to = Math.min(window.end(), order.length);
+		return from == 0 && to == order.length ? order : Arrays.copyOfRange(order, from, to);
+	}
+
+	/**
+	 * Keeps the {@code k} first entries of the ascending (or descending) order in
+	 * a heap whose root is the worst entry kept, then sorts them ascending.
+	 */
+	private static int[] selectBest(double[] values, int count, int k, boolean descending) {
+		int[] heap = new int[Math.min(k, count)];
+		int size = 0;
+		for (int i = 0; i < count && heap.length > 0; i++) {
+			if (Double.isNaN(values[i])) {
+				continue;
+			}
+			if (size < heap.length) {
+				heap[size] = i;
+				siftUp(heap, size++, values, descending);
+			} else if (comesBefore(i, heap[0], values, descending)) {
+				heap[0] = i;
+				siftDown(heap, size, values, descending);
+			}
+		}
+		int[] kept = Arrays.copyOf(heap, size);
+		Arrays.sort(kept);
+		mergeSort(kept, new int[size], 0, size, values);
+		return kept;
+	}
+
+	/**
+	 * @return whether index {@code a} comes before index {@code b} in the
+	 *         requested order, ties being broken by index like the stable sort.
+	 */
+	private static boolean comesBefore(int a, int b, double[] values, boolean descending) {
+		if (values[a] != values[b]) {
+			return descending ? values[a] > values[b] : values[a] < values[b];
+		}
+		return descending ? a > b : a < b;
+	}
+
+	private static void siftUp(int[] heap, int index, double[] values, boolean descending) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (!comesBefore(heap[parent], heap[index], values, descending)) {
+				return;
+			}
+			swap(heap, parent, index);
+			index = parent;
+		}
+	}
+
+	private static void siftDown(int[] heap, int size, double[] values, boolean descending) {
+		int index = 0;
+		while (true) {
+			int left = 2 * index + 1;
+			if (left >= size) {
+				return;
+			}
+			int right = left + 1;
+			int worst = right < size && comesBefore(heap[left], heap[right], values, descending) ? right : left;
+			if (!comesBefore(heap[index], heap[worst], values, descending)) {
+				return;
+			}
+			swap(heap, index, worst);
+			index = worst;
+		}
+	}
+
+	private static void swap(int[] array, int i, int j) {
+		int tmp = array[i];
+		array[i] = array[j];
+		array[j] = tmp;
+	}
+
+	private static void reverse(int[] array) {
+		for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+			swap(array, i, j);
+		}
+	}
+
+	/**
+	 * Stable merge sort of the index range {@code [from, to)} by the values they
+	 * point to.
+	 */
+	private static void mergeSort(int[] order, int[] buffer, int from, int to, double[] values) {
+		if (to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(order, buffer, from, middle, values);
+		mergeSort(order, buffer, middle, to, values);
+		if (values[order[middle - 1]] <= values[order[middle]]) {
+			return;
+		}
+		System.arraycopy(order, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && values[buffer[left]] <= values[buffer[right]])) {
+				order[i] = buffer[left++];
+			} else {
+				order[i] = buffer[right++];
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.darklab.asteroids.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.darklab.asteroids.entity.BackfillCheckpointEntity;
+import com.darklab.asteroids.repository.BackfillCheckpointRepository;
+
+import io.micrometer.common.util.StringUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Backfills the {@link NeoWsDayStore} with the history of the feed, so long
+ * ranges are served locally instead of through NeoWs.
+ * <p>
+ * The job walks the days from {@code neows.backfill.start-date} to
+ * {@code neows.backfill.end-date}, or to yesterday when no end date is set, in
+ * steps of {@code neows.backfill.days-per-step} days, one step every
+ * {@code neows.backfill.delay-ms} milliseconds. Each step goes through
+ * {@link NeoWsService#backfill(DateRange)}: days already stored are skipped,
+ * and the others are fetched at background priority, so the job only spends
+ * the quota interactive requests leave over. When the quota is exhausted the
+ * step fails and is retried on the next run.
+ * </p>
+ * <p>
+ * Progress is checkpointed in the database after every step, so a restarted
+ * job resumes where it stopped. Changing the start date restarts the walk, which
+ * costs little since stored days are skipped. Throughput and the estimated time
+ * left are logged after each step and published as metrics. The job is only
+ * active when {@code neows.backfill.enabled} is set.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "neows.backfill.enabled", havingValue = "true")
+public class NeoWsBackfill {
+	/**
+	 * Name of the checkpoint of the job.
+	 */
+	public static final String CHECKPOINT = "neows-feed";
+	private static final Logger logger = LoggerFactory.getLogger(NeoWsBackfill.class);
+
+	private final NeoWsService neoWsService;
+	private final BackfillCheckpointRepository checkpoints;
+	private final MeterRegistry meterRegistry;
+	private final Clock clock;
+	private final LocalDate startDate;
+	private final LocalDate endDate;
+	private final long daysPerStep;
+	private final AtomicBoolean running = new AtomicBoolean();
+	private BackfillCheckpointEntity checkpoint;
+	/**
+	 * When the first step of the job started, which throughput is measured from.
+	 */
+	private long startedAt;
+	private long processedDays;
+	private volatile long remainingDays;
+	private boolean completeLogged;
+
+	@Autowired
+	public NeoWsBackfill(NeoWsService neoWsService, BackfillCheckpointRepository checkpoints,
+			MeterRegistry meterRegistry, @Value("${neows.backfill.start-date:2015-01-01}") String startDate,
+			@Value("${neows.backfill.end-date:}") String endDate,
+			@Value("${neows.backfill.days-per-step:56}") long daysPerStep, Clock clock) {
+		if (daysPerStep < 1) {
+			throw new IllegalArgumentException("neows.backfill.days-per-step must be positive: " + daysPerStep);
+		}
+		this.neoWsService = neoWsService;
+		this.checkpoints = checkpoints;
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+		this.startDate = LocalDate.parse(startDate);
+		this.endDate = StringUtils.isBlank(endDate) ? null : LocalDate.parse(endDate);
+		this.daysPerStep = daysPerStep;
+		Gauge.builder("neows.backfill.remaining", this, backfill -> backfill.remainingDays)
+				.description("Days the backfill has yet to walk").baseUnit("days").register(meterRegistry);
+	}
+
+	@Scheduled(initialDelayString = "${neows.backfill.delay-ms:1000}", fixedDelayString = "${neows.backfill.delay-ms:1000}")
+	public void run() {
+		step();
+	}
+
+	/**
+	 * Backfills the next step of the span, unless the previous step is still
+	 * running or the span is complete.
+	 *
+	 * @return A future completed once the step is checkpointed. A failed step
+	 *         completes normally, leaving the checkpoint where it was.
+	 */
+	public CompletableFuture<Void> step() {
+		if (!running.compareAndSet(false, true)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		try {
+			LocalDate end = endDate != null ? endDate : LocalDate.now(clock).minusDays(1);
+			if (checkpoint == null) {
+				checkpoint = loadCheckpoint();
+				startedAt = clock.millis();
+			}
+			LocalDate next = checkpoint.getNextDate();
+			remainingDays = Math.max(0, ChronoUnit.DAYS.between(next, end) + 1);
+			if (next.isAfter(end)) {
+				if (!completeLogged) {
+					logger.info("Backfill complete up to {}: {} days fetched, {} skipped", end,
+							checkpoint.getFetchedDays(), checkpoint.getSkippedDays());
+					completeLogged = true;
+				}
+				running.set(false);
+				return CompletableFuture.completedFuture(null);
+			}
+			completeLogged = false;
+			LocalDate stepEnd = next.plusDays(daysPerStep - 1);
+			DateRange window = new DateRange(next, stepEnd.isAfter(end) ? end : stepEnd);
+			return neoWsService.backfill(window).handle((fetched, ex) -> {
+				try {
+					if (ex != null) {
+						logger.warn("Backfilling {} failed, retrying on the next run: {}", window, ex.getMessage());
+					} else {
+						record(window, fetched, end);
+					}
+					return null;
+				} finally {
+					running.set(false);
+				}
+			});
+		} catch (RuntimeException ex) {
+			running.set(false);
+			throw ex;
+		}
+	}
+
+	private BackfillCheckpointEntity loadCheckpoint() {
+		BackfillCheckpointEntity found = checkpoints.findById(CHECKPOINT).orElse(null);
+		if (found != null && found.getStartDate().equals(startDate)) {
+			logger.info("Resuming backfill from {}", found.getNextDate());
+			return found;
+		}
+		BackfillCheckpointEntity created = new BackfillCheckpointEntity();
+		created.setName(CHECKPOINT);
+		created.setStartDate(startDate);
+		created.setNextDate(startDate);
+		created.setUpdatedAt(clock.instant());
+		logger.info("Starting backfill from {}", startDate);
+		return created;
+	}
+
+	private void record(DateRange window, int fetched, LocalDate end) {
+		long skipped = window.lengthInDays() - fetched;
+		checkpoint.setNextDate(window.end().plusDays(1));
+		checkpoint.setFetchedDays(checkpoint.getFetchedDays() + fetched);
+		checkpoint.setSkippedDays(checkpoint.getSkippedDays() + skipped);
+		checkpoint.setUpdatedAt(clock.instant());
+		checkpoint = checkpoints.save(checkpoint);
+		meterRegistry.counter("neows.backfill.days", "result", "fetched").increment(fetched);
+		meterRegistry.counter("neows.backfill.days", "result", "skipped").increment(skipped);
+
+		processedDays += window.lengthInDays();
+		remainingDays = Math.max(0, ChronoUnit.DAYS.between(window.end(), end));
+		double elapsedHours = Math.max(1, clock.millis() - startedAt) / 3_600_000.0;
+		double daysPerHour = processedDays / elapsedHours;
+		Duration eta = Duration.ofSeconds((long) (remainingDays / daysPerHour * 3600));
+		logger.info("Backfilled {}: {} days fetched, {} skipped; {} days left at {} days/hour, ETA {}", window,
+				fetched, skipped, remainingDays, Math.round(daysPerHour), eta);
+	}
+}
@@ -0,0 +1,255 @@
+package com.darklab.asteroids.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.darklab.asteroids.dto.NeoWsResponse;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Thin, non-blocking client for the NeoWs feed endpoint of the NASA API.
+ * <p>
+ * Requests are sent with the shared {@code neoWsHttpClient}, so no thread
+ * waits for NeoWs while a request is in flight and connections are reused
+ * across requests. Failures are reported with the same
+ * {@link RestClientException} types the Spring clients use.
+ * </p>
+ */
+@Component
+public class NeoWsClient {
+	private static final String GZIP = "gzip";
+	private static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+	private static final Logger logger = LoggerFactory.getLogger(NeoWsClient.class);
+
+	@Value("${neows.api.key}")
+	private String apiKey;
+	private final HttpClient httpClient;
+	private final ExecutorService parseExecutor;
+	private final NeoWsRateLimiter rateLimiter;
+	private final MeterRegistry meterRegistry;
+	private final Timer parseTimer;
+	private final DistributionSummary payloadSize;
+	private final DistributionSummary objectCount;
+	private final String baseUrl;
+	private final Duration readTimeout;
+	private final boolean gzip;
+	private final Path recordDir;
+
+	public NeoWsClient(HttpClient neoWsHttpClient, ExecutorService neoWsFetchExecutor, NeoWsRateLimiter rateLimiter,
+			MeterRegistry meterRegistry,
+			@Value("${neows.base-url:https://api.nasa.gov/neo/rest/v1/feed}") String baseUrl,
+			@Value("${neows.http.read-timeout-ms:30000}") long readTimeoutMillis,
+			@Value("${neows.http.gzip:true}") boolean gzip, @Value("${neows.record-dir:}") String recordDir) {
+		this.httpClient = neoWsHttpClient;
+		this.parseExecutor = neoWsFetchExecutor;
+		this.rateLimiter = rateLimiter;
+		this.meterRegistry = meterRegistry;
+		this.parseTimer = Timer.builder("neows.upstream.parse").description("Time spent reading and parsing a feed")
+				.publishPercentileHistogram().register(meterRegistry);
+		this.payloadSize = DistributionSummary.builder("neows.upstream.payload").baseUnit("bytes")
+				.description("Size of the feed bodies as received, before decompression").register(meterRegistry);
+		this.objectCount = DistributionSummary.builder("neows.upstream.objects")
+				.description("Near earth objects per feed").register(meterRegistry);
+		this.baseUrl = baseUrl;
+		this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+		this.gzip = gzip;
+		this.recordDir = recordDir.isBlank() ? null : Path.of(recordDir);
+	}
+
+	/**
+	 * Fetches the NeoWs feed for the given days without blocking the caller.
+	 * <p>
+	 * The body is received without holding a thread, then parsed on the fetch
+	 * executor with {@link NeoWsFeedParser}, which keeps only the fields the
+	 * extractors use instead of binding the whole document. Unless disabled, the
+	 * feed is requested gzip-compressed and decompressed while it is parsed.
+	 * The whole exchange, body included, must complete within
+	 * {@code neows.http.read-timeout-ms}; otherwise it is aborted and fails with
+	 * a {@link ResourceAccessException}, so a stalled body never ties up a
+	 * fetch thread.
+	 * </p>
+	 * <p>
+	 * The request is only sent once the {@link NeoWsRateLimiter} grants it a
+	 * share of the API key quota, and the quota NeoWs reports back is fed to the
+	 * limiter.
+	 * </p>
+	 * <p>
+	 * The round trip up to the end of the body is recorded by the
+	 * {@code neows.upstream.requests} timer, tagged with the response status,
+	 * and reading the body by {@code neows.upstream.parse}. Failures are counted
+	 * by {@code neows.upstream.errors}, tagged with the exception type.
+	 * </p>
+	 * <p>
+	 * When {@code neows.record-dir} is set, every successful feed body is also
+	 * saved there, decompressed, as {@code feed-<start>_<end>.json}, so it can
+	 * be replayed later without calling NeoWs.
+	 * </p>
+	 *
+	 * @param startDate
+	 *            The first day to fetch.
+	 * @param endDate
+	 *            The last day to fetch. NeoWs accepts at most 7 days after
+	 *            {@code startDate}.
+	 * @param priority
+	 *            Whether a user is waiting for the feed.
+	 * @return A future of the deserialized feed. It completes exceptionally
+	 *         with a {@link NeoWsQuotaExceededException} if the quota is
+	 *         exhausted, or with another {@link RestClientException} if the
+	 *         request to NeoWs fails or NeoWs answers with an error status.
+	 */
+	public CompletableFuture<NeoWsResponse> fetchFeedAsync(LocalDate startDate, LocalDate endDate,
+			NeoWsRateLimiter.Priority priority) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(buildUri(startDate, endDate)).timeout(readTimeout)
+				.GET();
+		if (gzip) {
+			request.header(HttpHeaders.ACCEPT_ENCODING, GZIP);
+		}
+		return rateLimiter.acquire(priority).thenCompose(granted -> send(request.build()))
+				.thenApplyAsync(response -> readFeed(response, startDate, endDate), parseExecutor).whenComplete((feed, ex) -> {
+					if (ex != null) {
+						Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+								? ex.getCause()
+								: ex;
+						meterRegistry.counter("neows.upstream.errors", "exception", cause.getClass().getSimpleName())
+								.increment();
+					}
+				});
+	}
+
+	/**
+	 * Sends the request and receives the whole body, aborting the exchange if it
+	 * takes longer than the read timeout. The timeout of the request itself only
+	 * bounds the wait for the response headers.
+	 */
+	private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(request,
+				HttpResponse.BodyHandlers.ofByteArray());
+		return exchange.copy().orTimeout(readTimeout.toMillis(), TimeUnit.MILLISECONDS).handle((response, ex) -> {
+			Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+			String status = response != null
+					? String.valueOf(response.statusCode())
+					: cause instanceof TimeoutException ? "TIMEOUT" : "IO_ERROR";
+			sample.stop(Timer.builder("neows.upstream.requests").description("Round trip of NeoWs requests")
+					.tag("status", status).publishPercentileHistogram().register(meterRegistry));
+			if (cause instanceof TimeoutException) {
+				exchange.cancel(true);
+				throw new ResourceAccessException("NeoWs feed not received within " + readTimeout.toMillis() + " ms",
+						new IOException(cause));
+			}
+			if (ex != null) {
+				throw new ResourceAccessException("I/O error on GET request for NeoWs feed: " + cause.getMessage(),
+						cause instanceof IOException io ? io : new IOException(cause));
+			}
+			return response;
+		});
+	}
+
+	private NeoWsResponse readFeed(HttpResponse<byte[]> response, LocalDate startDate, LocalDate endDate) {
+		response.headers().firstValue(RATE_LIMIT_REMAINING).flatMap(NeoWsClient::parseRemaining)
+				.ifPresent(rateLimiter::observeRemaining);
+		Timer.Sample sample = Timer.start(meterRegistry);
+		try (InputStream body = decodedBody(response, new ByteArrayInputStream(response.body()))) {
+			int status = response.statusCode();
+			if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+				rateLimiter.observeRemaining(0);
+				throw new NeoWsQuotaExceededException("NeoWs rejected the request, the API key quota is exhausted",
+						errorFor(response, body.readAllBytes()));
+			}
+			if (status >= 400) {
+				throw errorFor(response, body.readAllBytes());
+			}
+			NeoWsResponse feed = recordDir == null
+					? NeoWsFeedParser.parse(body)
+					: NeoWsFeedParser.parse(new ByteArrayInputStream(record(body, startDate, endDate)));
+			payloadSize.record(response.body().length);
+			if (feed.getNear_earth_objects() != null) {
+				objectCount.record(feed.getNear_earth_objects().values().stream().mapToInt(List::size).sum());
+			}
+			return feed;
+		} catch (IOException ex) {
+			throw new ResourceAccessException("I/O error reading NeoWs feed: " + ex.getMessage(), ex);
+		} finally {
+			sample.stop(parseTimer);
+		}
+	}
+
+	/**
+	 * Parses the quota NeoWs reports. A malformed value is logged and ignored, as
+	 * it says nothing about the feed itself.
+	 */
+	private static Optional<Long> parseRemaining(String value) {
+		try {
+			return Optional.of(Long.parseLong(value.trim()));
+		} catch (NumberFormatException ex) {
+			logger.warn("Ignoring malformed {} header: '{}'", RATE_LIMIT_REMAINING, value);
+			return Optional.empty();
+		}
+	}
+
+	private byte[] record(InputStream body, LocalDate startDate, LocalDate endDate) throws IOException {
+		byte[] feed = body.readAllBytes();
+		Files.createDirectories(recordDir);
+		Files.write(recordDir.resolve("feed-" + startDate + "_" + endDate + ".json"), feed);
+		return feed;
+	}
+
+	private static InputStream decodedBody(HttpResponse<?> response, InputStream body) throws IOException {
+		boolean gzipped = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)
+				.filter(GZIP::equalsIgnoreCase).isPresent();
+		return gzipped ? new GZIPInputStream(body) : body;
+	}
+
+	private static RestClientException errorFor(HttpResponse<?> response, byte[] body) {
+		HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+		HttpHeaders headers = new HttpHeaders();
+		response.headers().map().forEach(headers::addAll);
+		if (status.is4xxClientError()) {
+			return HttpClientErrorException.create(status, "", headers, body, StandardCharsets.UTF_8);
+		}
+		if (status.is5xxServerError()) {
+			return HttpServerErrorException.create(status, "", headers, body, StandardCharsets.UTF_8);
+		}
+		return new UnknownHttpStatusCodeException(status.value(), "", headers, body, StandardCharsets.UTF_8);
+	}
+
+	private URI buildUri(LocalDate startDate, LocalDate endDate) {
+		return UriComponentsBuilder.fromHttpUrl(baseUrl).queryParam("start_date", startDate)
+				.queryParam("end_date", endDate).queryParam("api_key", apiKey).build().toUri();
+	}
+}
@@ -0,0 +1,55 @@
+package com.darklab.asteroids.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.darklab.asteroids.dto.NeoObject;
+
+/**
+ * The near-earth objects reported by NeoWs for a single day.
+ *
+ * A day is the unit in which feed data is cached and reused across requests,
+ * since {@code near_earth_objects} in the NeoWs feed is keyed by day. The
+ * derived structures used to answer queries are built once, when the day is
+ * created.
+ *
+ * @param date
+ *            the day the objects were reported for.
+ * @param objects
+ *            the near-earth objects of that day.
+ * @param columns
+ *            the close approaches of that day in columnar form.
+ * @param summary
+ *            the mergeable statistics of the objects of that day.
+ * @param sketches
+ *            the quantile sketch of each metric of the close approaches of that
+ *            day.
+ */
+public record NeoWsDay(LocalDate date, List<NeoObject> objects, CloseApproachColumns columns, DaySummary summary,
+		Map<ApproachMetric, QuantileSketch> sketches) {
+
+	/**
+	 * Creates a day and builds its derived structures from the given objects.
+	 */
+	public static NeoWsDay of(LocalDate date, List<NeoObject> objects) {
+		List<NeoObject> immutableObjects = List.copyOf(objects);
+		CloseApproachColumns columns = CloseApproachColumns.of(immutableObjects);
+		Map<ApproachMetric, QuantileSketch> sketches = new EnumMap<>(ApproachMetric.class);
+		for (ApproachMetric metric : ApproachMetric.values()) {
+			sketches.put(metric, QuantileSketch.of(columns, metric));
+		}
+		return new NeoWsDay(date, immutableObjects, columns, DaySummary.of(immutableObjects),
+				Collections.unmodifiableMap(sketches));
+	}
+
+	/**
+	 * @return the quantile sketch of the given metric over the close approaches
+	 *         of this day.
+	 */
+	public QuantileSketch sketch(ApproachMetric metric) {
+		return sketches.get(metric);
+	}
+}
@@ -0,0 +1,205 @@
+package com.darklab.asteroids.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.darklab.asteroids.dto.*;
+import com.darklab.asteroids.entity.CloseApproachEmbeddable;
+import com.darklab.asteroids.entity.NeoDayEntity;
+import com.darklab.asteroids.entity.NeoObjectEntity;
+import com.darklab.asteroids.repository.NeoDayRepository;
+import com.darklab.asteroids.repository.NeoObjectRepository;
+
+/**
+ * Persistent store of NeoWs feed days, backed by the embedded database.
+ *
+ * <p>
+ * Only days strictly before today are stored: NeoWs does not revise the feed of
+ * past days, so once such a day has been fetched it can be served from the
+ * store indefinitely, including after a restart. Today and future days are
+ * left to the in-memory cache of {@link NeoWsService}, which expires them.
+ * </p>
+ */
+@Service
+public class NeoWsDayStore {
+	private static final Logger logger = LoggerFactory.getLogger(NeoWsDayStore.class);
+	private final NeoDayRepository neoDayRepository;
+	private final NeoObjectRepository neoObjectRepository;
+	private final Clock clock;
+
+	@Autowired
+	public NeoWsDayStore(NeoDayRepository neoDayRepository, NeoObjectRepository neoObjectRepository,
+			Clock clock) {
+		this.neoDayRepository = neoDayRepository;
+		this.neoObjectRepository = neoObjectRepository;
+		this.clock = clock;
+	}
+
+	/**
+	 * Loads the stored days among the given days.
+	 *
+	 * @param days
+	 *            The days to look up.
+	 * @return The stored days keyed by date. Days that are not stored are absent
+	 *         from the map.
+	 */
+	@Transactional(readOnly = true)
+	public Map<LocalDate, NeoWsDay> findDays(Collection<LocalDate> days) {
+		Map<LocalDate, NeoWsDay> found = new HashMap<>();
+		if (days.isEmpty()) {
+			return found;
+		}
+		for (NeoDayEntity entity : neoDayRepository.findWithObjectsByFeedDateIn(days)) {
+			List<NeoObject> objects = entity.getObjects().stream().map(NeoWsDayStore::toNeoObject).toList();
+			found.put(entity.getFeedDate(), NeoWsDay.of(entity.getFeedDate(), objects));
+		}
+		return found;
+	}
+
+	/**
+	 * Looks up the stored reports of one asteroid through the index on its NeoWs
+	 * id, without loading the days it appears in.
+	 *
+	 * @param neoId
+	 *            The NeoWs id of the asteroid.
+	 * @param range
+	 *            The days to look in.
+	 * @return The asteroid as reported by each stored day of the range, keyed
+	 *         by ascending date.
+	 */
+	@Transactional(readOnly = true)
+	public List<Pair<LocalDate, NeoObject>> findObjects(String neoId, DateRange range) {
+		return neoObjectRepository.findWithApproachesByNeoIdAndFeedDateBetween(neoId, range.start(), range.end())
+				.stream().map(entity -> new Pair<>(entity.getDay().getFeedDate(), toNeoObject(entity))).toList();
+	}
+
+	/**
+	 * Finds which of the given days are stored, without loading them.
+	 *
+	 * @param days
+	 *            The days to look up.
+	 * @return The stored days among them.
+	 */
+	@Transactional(readOnly = true)
+	public Set<LocalDate> findStoredDates(Collection<LocalDate> days) {
+		if (days.isEmpty()) {
+			return Set.of();
+		}
+		return new HashSet<>(neoDayRepository.findFeedDatesIn(days));
+	}
+
+	/**
+	 * Lists every stored day, without loading them.
+	 *
+	 * @return The stored days in ascending order.
+	 */
+	@Transactional(readOnly = true)
+	public List<LocalDate> findAllStoredDates() {
+		return neoDayRepository.findAllFeedDates();
+	}
+
+	/**
+	 * Stores the given days, skipping days that are not yet immutable (today or
+	 * later) and days that are already stored.
+	 *
+	 * @param days
+	 *            The days to store.
+	 */
+	@Transactional
+	public void saveDays(Collection<NeoWsDay> days) {
+		LocalDate today = LocalDate.now(clock);
+		Set<LocalDate> candidates = new HashSet<>();
+		for (NeoWsDay day : days) {
+			if (day.date().isBefore(today)) {
+				candidates.add(day.date());
+			}
+		}
+		if (candidates.isEmpty()) {
+			return;
+		}
+		Set<LocalDate> alreadyStored = new HashSet<>(neoDayRepository.findFeedDatesIn(candidates));
+		List<NeoDayEntity> entities = days.stream()
+				.filter(day -> candidates.contains(day.date()) && !alreadyStored.contains(day.date()))
+				.map(day -> toEntity(day, clock)).toList();
+		neoDayRepository.saveAll(entities);
+		logger.debug("Stored {} NeoWs days", entities.size());
+	}
+
+	private static NeoDayEntity toEntity(NeoWsDay day, Clock clock) {
+		NeoDayEntity entity = new NeoDayEntity();
+		entity.setFeedDate(day.date());
+		entity.setFetchedAt(clock.instant());
+		day.objects().forEach(object -> entity.addObject(toEntity(object)));
+		return entity;
+	}
+
+	private static NeoObjectEntity toEntity(NeoObject object) {
+		NeoObjectEntity entity = new NeoObjectEntity();
+		entity.setNeoId(object.getId());
+		entity.setName(object.getName());
+		entity.setAbsoluteMagnitudeH(object.getAbsolute_magnitude_h());
+		entity.setPotentiallyHazardous(object.getIs_potentially_hazardous_asteroid());
+		if (object.getEstimated_diameter() != null && object.getEstimated_diameter().getKilometers() != null) {
+			Diameter kilometers = object.getEstimated_diameter().getKilometers();
+			entity.setDiameterMinKm(kilometers.getEstimated_diameter_min());
+			entity.setDiameterMaxKm(kilometers.getEstimated_diameter_max());
+		}
+		if (object.getClose_approach_data() != null) {
+			for (CloseApproachData data : object.getClose_approach_data()) {
+				CloseApproachEmbeddable approach = new CloseApproachEmbeddable();
+				approach.setCloseApproachDateFull(data.getClose_approach_date_full());
+				approach.setOrbitingBody(data.getOrbiting_body());
+				if (data.getRelative_velocity() != null) {
+					approach.setVelocityKmPerSecond(data.getRelative_velocity().getKilometers_per_second());
+				}
+				if (data.getMiss_distance() != null) {
+					approach.setMissDistanceKm(data.getMiss_distance().getKilometers());
+				}
+				entity.getCloseApproaches().add(approach);
+			}
+		}
+		return entity;
+	}
+
+	private static NeoObject toNeoObject(NeoObjectEntity entity) {
+		NeoObject object = new NeoObject();
+		object.setId(entity.getNeoId());
+		object.setName(entity.getName());
+		object.setAbsolute_magnitude_h(entity.getAbsoluteMagnitudeH());
+		object.setIs_potentially_hazardous_asteroid(entity.getPotentiallyHazardous());
+		if (entity.getDiameterMinKm() != null && entity.getDiameterMaxKm() != null) {
+			Diameter kilometers = new Diameter();
+			kilometers.setEstimated_diameter_min(entity.getDiameterMinKm());
+			kilometers.setEstimated_diameter_max(entity.getDiameterMaxKm());
+			EstimatedDiameter estimatedDiameter = new EstimatedDiameter();
+			estimatedDiameter.setKilometers(kilometers);
+			object.setEstimated_diameter(estimatedDiameter);
+		}
+		List<CloseApproachData> closeApproachData = new ArrayList<>(entity.getCloseApproaches().size());
+		for (CloseApproachEmbeddable approach : entity.getCloseApproaches()) {
+			CloseApproachData data = new CloseApproachData();
+			data.setClose_approach_date_full(approach.getCloseApproachDateFull());
+			data.setOrbiting_body(approach.getOrbitingBody());
+			RelativeVelocity relativeVelocity = new RelativeVelocity();
+			if (approach.getVelocityKmPerSecond() != null) {
+				relativeVelocity.setKilometers_per_second(approach.getVelocityKmPerSecond());
+			}
+			data.setRelative_velocity(relativeVelocity);
+			MissDistance missDistance = new MissDistance();
+			if (approach.getMissDistanceKm() != null) {
+				missDistance.setKilometers(approach.getMissDistanceKm());
+			}
+			data.setMiss_distance(missDistance);
+			closeApproachData.add(data);
+		}
+		object.setClose_approach_data(closeApproachData);
+		return object;
+	}
+}
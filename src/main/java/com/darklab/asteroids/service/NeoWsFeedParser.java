@@ -0,0 +1,245 @@
+package com.darklab.asteroids.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.darklab.asteroids.dto.*;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming, token-level parser for the NeoWs feed.
+ *
+ * <p>
+ * The feed carries every figure in several units plus links and orbital
+ * metadata, while the extractors only read the kilometre based diameter,
+ * velocity and distance of each object. This parser pulls those fields
+ * straight from the token stream into the DTOs and skips every other subtree
+ * without materializing it, instead of binding the whole document.
+ * </p>
+ *
+ * <p>
+ * Fields that are read: {@code id}, {@code name}, {@code absolute_magnitude_h},
+ * {@code estimated_diameter.kilometers}, {@code is_potentially_hazardous_asteroid}
+ * and, for each close approach, {@code close_approach_date_full},
+ * {@code relative_velocity.kilometers_per_second},
+ * {@code miss_distance.kilometers} and {@code orbiting_body}.
+ * </p>
+ *
+ * <p>
+ * Figures that are null or not numbers are left unknown rather than read as
+ * zero: an approach keeps a {@code null} velocity or distance, and an object
+ * whose kilometre diameters are not both known has no {@code kilometers}
+ * diameter, which the extractors already treat as missing.
+ * </p>
+ */
+public final class NeoWsFeedParser {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private NeoWsFeedParser() {
+	}
+
+	/**
+	 * Parses a NeoWs feed document.
+	 *
+	 * @param body
+	 *            The feed JSON. The stream is not closed.
+	 * @return The parsed feed. Its {@code near_earth_objects} map is {@code null}
+	 *         if the document does not contain one.
+	 * @throws IOException
+	 *             if the document cannot be read or is not valid JSON.
+	 */
+	public static NeoWsResponse parse(InputStream body) throws IOException {
+		NeoWsResponse response = new NeoWsResponse();
+		try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "Expected a JSON object for the NeoWs feed");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				if ("near_earth_objects".equals(field)) {
+					response.setNear_earth_objects(parseDays(parser));
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		return response;
+	}
+
+	private static Map<String, List<NeoObject>> parseDays(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		Map<String, List<NeoObject>> days = new LinkedHashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String date = parser.getCurrentName();
+			parser.nextToken();
+			List<NeoObject> objects = new ArrayList<>();
+			if (parser.currentToken() == JsonToken.START_ARRAY) {
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					objects.add(parseNeoObject(parser));
+				}
+			} else {
+				parser.skipChildren();
+			}
+			days.put(date, objects);
+		}
+		return days;
+	}
+
+	private static NeoObject parseNeoObject(JsonParser parser) throws IOException {
+		NeoObject object = new NeoObject();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+				case "id" -> object.setId(parser.getValueAsString());
+				case "name" -> object.setName(parser.getValueAsString());
+				case "absolute_magnitude_h" -> {
+					Double magnitude = readDouble(parser);
+					if (magnitude != null) {
+						object.setAbsolute_magnitude_h(magnitude);
+					}
+				}
+				case "is_potentially_hazardous_asteroid" ->
+					object.setIs_potentially_hazardous_asteroid(value.isBoolean() ? parser.getBooleanValue() : null);
+				case "estimated_diameter" -> object.setEstimated_diameter(parseEstimatedDiameter(parser));
+				case "close_approach_data" -> object.setClose_approach_data(parseCloseApproaches(parser));
+				default -> parser.skipChildren();
+			}
+		}
+		return object;
+	}
+
+	private static EstimatedDiameter parseEstimatedDiameter(JsonParser parser) throws IOException {
+		EstimatedDiameter estimatedDiameter = new EstimatedDiameter();
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return estimatedDiameter;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String unit = parser.getCurrentName();
+			parser.nextToken();
+			if ("kilometers".equals(unit) && parser.currentToken() == JsonToken.START_OBJECT) {
+				Double min = null;
+				Double max = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					parser.nextToken();
+					switch (field) {
+						case "estimated_diameter_min" -> min = readDouble(parser);
+						case "estimated_diameter_max" -> max = readDouble(parser);
+						default -> parser.skipChildren();
+					}
+				}
+				if (min != null && max != null) {
+					Diameter kilometers = new Diameter();
+					kilometers.setEstimated_diameter_min(min);
+					kilometers.setEstimated_diameter_max(max);
+					estimatedDiameter.setKilometers(kilometers);
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return estimatedDiameter;
+	}
+
+	private static List<CloseApproachData> parseCloseApproaches(JsonParser parser) throws IOException {
+		List<CloseApproachData> approaches = new ArrayList<>(1);
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return approaches;
+		}
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			CloseApproachData data = new CloseApproachData();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				switch (field) {
+					case "close_approach_date_full" -> data.setClose_approach_date_full(parser.getValueAsString());
+					case "orbiting_body" -> data.setOrbiting_body(parser.getValueAsString());
+					case "relative_velocity" -> {
+						RelativeVelocity relativeVelocity = new RelativeVelocity();
+						Double kilometersPerSecond = readNestedDouble(parser, "kilometers_per_second");
+						if (kilometersPerSecond != null) {
+							relativeVelocity.setKilometers_per_second(kilometersPerSecond);
+						}
+						data.setRelative_velocity(relativeVelocity);
+					}
+					case "miss_distance" -> {
+						MissDistance missDistance = new MissDistance();
+						Double kilometers = readNestedDouble(parser, "kilometers");
+						if (kilometers != null) {
+							missDistance.setKilometers(kilometers);
+						}
+						data.setMiss_distance(missDistance);
+					}
+					default -> parser.skipChildren();
+				}
+			}
+			approaches.add(data);
+		}
+		return approaches;
+	}
+
+	/**
+	 * Reads one numeric field of the current object, skipping its other fields.
+	 * NeoWs sends velocities and distances as strings, so both string and number
+	 * tokens are accepted.
+	 *
+	 * @return the value of the field, or {@code null} if it is absent, null or
+	 *         not a number.
+	 */
+	private static Double readNestedDouble(JsonParser parser, String wantedField) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		Double result = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			if (wantedField.equals(field)) {
+				result = readDouble(parser);
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the current value as a number, accepting numeric strings as NeoWs
+	 * sends them.
+	 *
+	 * @return the value, or {@code null} if it is null, not a finite number, or
+	 *         not a scalar.
+	 */
+	private static Double readDouble(JsonParser parser) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+			return parser.getDoubleValue();
+		}
+		if (token == JsonToken.VALUE_STRING) {
+			try {
+				double value = Double.parseDouble(parser.getText().trim());
+				return Double.isFinite(value) ? value : null;
+			} catch (NumberFormatException ex) {
+				return null;
+			}
+		}
+		parser.skipChildren();
+		return null;
+	}
+}
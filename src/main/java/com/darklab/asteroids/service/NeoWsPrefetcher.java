@@ -0,0 +1,54 @@
+package com.darklab.asteroids.service;
+
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the rolling window of days around today cached, so the requests most
+ * users make are served without waiting for NeoWs.
+ * <p>
+ * The window spans {@code neows.prefetch.days-back} days before today to
+ * {@code neows.prefetch.days-ahead} days after it, and is refreshed on the
+ * {@code neows.prefetch.cron} schedule. It is only active when
+ * {@code neows.prefetch.enabled} is set.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "neows.prefetch.enabled", havingValue = "true")
+public class NeoWsPrefetcher {
+	private static final Logger logger = LoggerFactory.getLogger(NeoWsPrefetcher.class);
+
+	private final NeoWsService neoWsService;
+	private final long daysBack;
+	private final long daysAhead;
+
+	public NeoWsPrefetcher(NeoWsService neoWsService, @Value("${neows.prefetch.days-back:3}") long daysBack,
+			@Value("${neows.prefetch.days-ahead:7}") long daysAhead) {
+		this.neoWsService = neoWsService;
+		this.daysBack = daysBack;
+		this.daysAhead = daysAhead;
+	}
+
+	/**
+	 * Starts prefetching the window around today. The fetch runs in the
+	 * background and its outcome is only logged.
+	 */
+	@Scheduled(cron = "${neows.prefetch.cron:0 */30 * * * *}")
+	public void prefetch() {
+		LocalDate today = LocalDate.now();
+		DateRange window = new DateRange(today.minusDays(daysBack), today.plusDays(daysAhead));
+		neoWsService.prefetch(window).whenComplete((days, ex) -> {
+			if (ex != null) {
+				logger.warn("Prefetching {} failed: {}", window, ex.getMessage());
+			} else {
+				logger.info("Prefetched {} days of {}", days, window);
+			}
+		});
+	}
+}
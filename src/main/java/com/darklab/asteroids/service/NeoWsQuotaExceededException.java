@@ -0,0 +1,18 @@
+package com.darklab.asteroids.service;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown when a NeoWs request is not sent, or is rejected by NeoWs, because
+ * the hourly quota of the API key is exhausted.
+ */
+public class NeoWsQuotaExceededException extends RestClientException {
+
+	public NeoWsQuotaExceededException(String message) {
+		super(message);
+	}
+
+	public NeoWsQuotaExceededException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
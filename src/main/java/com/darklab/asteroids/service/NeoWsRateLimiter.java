@@ -0,0 +1,216 @@
+package com.darklab.asteroids.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token bucket in front of every NeoWs request, sized to the hourly quota of
+ * the API key.
+ * <p>
+ * The bucket refills continuously at the hourly limit, and is drained down to
+ * the {@code X-RateLimit-Remaining} count NeoWs reports, so it never believes
+ * in more quota than NASA does. When no token is available, requests wait in
+ * a queue: interactive requests are served before background ones, and
+ * background requests only spend tokens above a reserve kept for interactive
+ * traffic. Requests that wait longer than the configured maximum, or that find
+ * the queue full, fail with a {@link NeoWsQuotaExceededException}.
+ * </p>
+ */
+@Component
+public class NeoWsRateLimiter {
+	private static final Logger logger = LoggerFactory.getLogger(NeoWsRateLimiter.class);
+	private static final long WINDOW_MILLIS = Duration.ofHours(1).toMillis();
+
+	/**
+	 * Who is waiting for a NeoWs request.
+	 */
+	public enum Priority {
+		/** A request a user is waiting for. */
+		INTERACTIVE,
+		/** Prefetching and other work nobody is waiting for. */
+		BACKGROUND
+	}
+
+	private record Waiter(CompletableFuture<Void> future, long deadline) {
+	}
+
+	private final Clock clock;
+	private final double capacity;
+	private final double backgroundReserve;
+	private final long maxWaitMillis;
+	private final int maxQueued;
+	private final Deque<Waiter> interactive = new ArrayDeque<>();
+	private final Deque<Waiter> background = new ArrayDeque<>();
+	private double tokens;
+	private long refilledAt;
+	private boolean drainScheduled;
+	private long rejected;
+
+	@Autowired
+	public NeoWsRateLimiter(@Value("${neows.quota.hourly-limit:1000}") int hourlyLimit,
+			@Value("${neows.quota.background-reserve:0.2}") double backgroundReserve,
+			@Value("${neows.quota.max-wait-ms:10000}") long maxWaitMillis,
+			@Value("${neows.quota.max-queued:100}") int maxQueued) {
+		this(hourlyLimit, backgroundReserve, maxWaitMillis, maxQueued, Clock.systemUTC());
+	}
+
+	public NeoWsRateLimiter(int hourlyLimit, double backgroundReserve, long maxWaitMillis, int maxQueued, Clock clock) {
+		this.clock = clock;
+		this.capacity = hourlyLimit;
+		this.backgroundReserve = hourlyLimit * backgroundReserve;
+		this.maxWaitMillis = maxWaitMillis;
+		this.maxQueued = maxQueued;
+		this.tokens = hourlyLimit;
+		this.refilledAt = clock.millis();
+	}
+
+	/**
+	 * Takes a token for one NeoWs request.
+	 *
+	 * @param priority
+	 *            Whether a user is waiting for the request.
+	 * @return A future that completes once the request may be sent, or completes
+	 *         exceptionally with a {@link NeoWsQuotaExceededException} if the
+	 *         request is shed.
+	 */
+	public synchronized CompletableFuture<Void> acquire(Priority priority) {
+		refill();
+		Deque<Waiter> queue = priority == Priority.INTERACTIVE ? interactive : background;
+		boolean ahead = !interactive.isEmpty() || !queue.isEmpty();
+		if (!ahead && tokens - 1 >= reserveFor(priority)) {
+			tokens--;
+			return CompletableFuture.completedFuture(null);
+		}
+		if (interactive.size() + background.size() >= maxQueued) {
+			rejected++;
+			return CompletableFuture.failedFuture(
+					new NeoWsQuotaExceededException("Too many NeoWs requests waiting for quota"));
+		}
+		Waiter waiter = new Waiter(new CompletableFuture<>(), clock.millis() + maxWaitMillis);
+		queue.add(waiter);
+		scheduleDrain();
+		return waiter.future();
+	}
+
+	/**
+	 * Aligns the bucket with the {@code X-RateLimit-Remaining} count of a NeoWs
+	 * response.
+	 */
+	public synchronized void observeRemaining(long remaining) {
+		refill();
+		if (remaining < tokens) {
+			logger.debug("NeoWs reports {} requests left, bucket had {}", remaining, (long) tokens);
+			tokens = Math.max(0, remaining);
+		}
+	}
+
+	/**
+	 * @return The number of requests that may currently be sent.
+	 */
+	public synchronized double getAvailableTokens() {
+		refill();
+		return tokens;
+	}
+
+	/**
+	 * @return The number of requests waiting for a token.
+	 */
+	public synchronized int getQueuedCount() {
+		return interactive.size() + background.size();
+	}
+
+	/**
+	 * @return The number of requests shed because the queue was full or they
+	 *         waited too long.
+	 */
+	public synchronized long getRejectedCount() {
+		return rejected;
+	}
+
+	private void drain() {
+		List<Waiter> granted = new ArrayList<>();
+		List<Waiter> expired = new ArrayList<>();
+		synchronized (this) {
+			drainScheduled = false;
+			refill();
+			long now = clock.millis();
+			serve(interactive, reserveFor(Priority.INTERACTIVE), now, granted, expired);
+			serve(background, reserveFor(Priority.BACKGROUND), now, granted, expired);
+			rejected += expired.size();
+			if (!interactive.isEmpty() || !background.isEmpty()) {
+				scheduleDrain();
+			}
+		}
+		if (!expired.isEmpty()) {
+			logger.warn("Shedding {} NeoWs requests that waited {} ms for quota", expired.size(), maxWaitMillis);
+		}
+		granted.forEach(waiter -> waiter.future().complete(null));
+		expired.forEach(waiter -> waiter.future()
+				.completeExceptionally(new NeoWsQuotaExceededException("NeoWs quota exhausted, please retry later")));
+	}
+
+	private void serve(Deque<Waiter> queue, double reserve, long now, List<Waiter> granted, List<Waiter> expired) {
+		for (Iterator<Waiter> it = queue.iterator(); it.hasNext();) {
+			Waiter waiter = it.next();
+			if (tokens - 1 >= reserve) {
+				tokens--;
+				granted.add(waiter);
+				it.remove();
+			} else if (waiter.deadline() <= now) {
+				expired.add(waiter);
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Schedules the next pass over the queues for when the first waiter can be
+	 * served or expires, whichever comes first.
+	 */
+	private void scheduleDrain() {
+		if (drainScheduled) {
+			return;
+		}
+		long now = clock.millis();
+		long delay = Long.MAX_VALUE;
+		if (!interactive.isEmpty()) {
+			delay = Math.min(delay, millisUntil(reserveFor(Priority.INTERACTIVE) + 1));
+			delay = Math.min(delay, interactive.peek().deadline() - now);
+		}
+		if (!background.isEmpty()) {
+			delay = Math.min(delay, millisUntil(reserveFor(Priority.BACKGROUND) + 1));
+			delay = Math.min(delay, background.peek().deadline() - now);
+		}
+		drainScheduled = true;
+		CompletableFuture.delayedExecutor(Math.max(1, delay), TimeUnit.MILLISECONDS).execute(this::drain);
+	}
+
+	private long millisUntil(double target) {
+		return (long) Math.ceil(Math.max(0, target - tokens) * WINDOW_MILLIS / capacity);
+	}
+
+	private double reserveFor(Priority priority) {
+		return priority == Priority.INTERACTIVE ? 0 : backgroundReserve;
+	}
+
+	private void refill() {
+		long now = clock.millis();
+		if (now > refilledAt) {
+			tokens = Math.min(capacity, tokens + (now - refilledAt) * capacity / WINDOW_MILLIS);
+			refilledAt = now;
+		}
+	}
+}
@@ -1,36 +1,113 @@
 package com.darklab.asteroids.service;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import com.darklab.asteroids.dto.HistogramDTO;
+import com.darklab.asteroids.dto.QuantilesDTO;
+import com.darklab.asteroids.dto.NeoObject;
 import com.darklab.asteroids.dto.NeoWsResponse;
+import com.darklab.asteroids.service.NeoWsRateLimiter.Priority;
 
 import io.micrometer.common.util.StringUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class NeoWsService {
 	private static final String DATE_FORMAT = "yyyy-MM-dd";
-	private static final long MAX_INTERVAL_DAYS = 7L;
+	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
+	/**
+	 * NeoWs accepts an end date at most 7 days after the start date.
+	 */
+	private static final long UPSTREAM_WINDOW_DAYS = 7L;
+	private static final List<String> JSON_INFO_TYPES = List.of("maxMinDiameter", "relativeVelocity",
+			"missDistances");
+	/**
+	 * The info types computed from a {@link DaySummary}, which the archive can
+	 * answer for long ranges.
+	 */
+	private static final Set<String> SUMMARY_INFO_TYPES = Set.of("maxMinDiameter", "summary");
+	private static final Map<String, ApproachMetric> APPROACH_METRICS = Map.of("relativeVelocity",
+			ApproachMetric.RELATIVE_VELOCITY, "missDistances", ApproachMetric.MISS_DISTANCE, "diameter",
+			ApproachMetric.DIAMETER);
+	/**
+	 * Upper bound on the bins of a histogram, far more than any chart shows.
+	 */
+	private static final int MAX_HISTOGRAM_BINS = 1000;
+	private static final int MAX_QUANTILES = 100;
+	/**
+	 * The days NeoWs reports close approaches for, standing for a missing bound.
+	 */
+	private static final DateRange ALL_DAYS = new DateRange(LocalDate.of(1900, 1, 1), LocalDate.of(2200, 12, 31));
 
-	@Value("${neows.api.key}")
-	private String apiKey;
-	// + "&api_key=" + apiKey
 	private static final Logger logger = LoggerFactory.getLogger(NeoWsService.class);
-	private static final String BASE_URL = "https://api.nasa.gov/neo/rest/v1/feed";
-	private final RestTemplate restTemplate;
+	private final NeoWsClient neoWsClient;
+	private final NeoWsDayStore dayStore;
+	private final ApproachArchive archive;
+	private final MeterRegistry meterRegistry;
+	private final ExpiringLruCache<LocalDate, NeoWsDay> dayCache;
+	private final long maxRangeDays;
+	private final Clock clock;
+	/**
+	 * A pending upstream fetch and the priority it was requested at.
+	 */
+	private record InFlightFetch(CompletableFuture<Map<LocalDate, NeoWsDay>> future, Priority priority) {
+	}
+
+	/**
+	 * Pending upstream fetches by the days they cover. Guarded by itself.
+	 */
+	private final Map<LocalDate, InFlightFetch> inFlightDays = new HashMap<>();
+	private final AtomicLong upstreamFetches = new AtomicLong();
+	private final AtomicLong coalescedFetches = new AtomicLong();
+	/**
+	 * Set when stored days could not be archived, until the archive catches up
+	 * from the day store.
+	 */
+	private final AtomicBoolean archiveBehind = new AtomicBoolean();
+	/**
+	 * The day on which the cached days were last checked for having ended since
+	 * they were fetched.
+	 */
+	private volatile LocalDate cacheDate;
+
+	public NeoWsService(NeoWsClient neoWsClient, NeoWsDayStore dayStore, ApproachArchive archive,
+			MeterRegistry meterRegistry, int cacheMaxDays, long cacheTtlMinutes, long maxRangeDays) {
+		this(neoWsClient, dayStore, archive, meterRegistry, cacheMaxDays, cacheTtlMinutes, maxRangeDays,
+				Clock.systemDefaultZone());
+	}
 
-	public NeoWsService() {
-		this.restTemplate = new RestTemplate();
+	@Autowired
+	public NeoWsService(NeoWsClient neoWsClient, NeoWsDayStore dayStore, ApproachArchive archive,
+			MeterRegistry meterRegistry,
+			@Value("${neows.cache.max-days:90}") int cacheMaxDays,
+			@Value("${neows.cache.ttl-minutes:60}") long cacheTtlMinutes,
+			@Value("${neows.max-range-days:366}") long maxRangeDays, Clock clock) {
+		this.neoWsClient = neoWsClient;
+		this.dayStore = dayStore;
+		this.archive = archive;
+		this.meterRegistry = meterRegistry;
+		this.maxRangeDays = maxRangeDays;
+		this.clock = clock;
+		this.dayCache = new ExpiringLruCache<>(cacheMaxDays, Duration.ofMinutes(cacheTtlMinutes), clock);
+		this.cacheDate = LocalDate.now(clock);
 	}
 
 	/**
@@ -38,7 +115,9 @@ public class NeoWsService {
 	 * information based on a given info type.
 	 * <p>
 	 * The method uses the given date range to query the NeoWs API for asteroid
-	 * data. The info type parameter determines what kind of information should be
+	 * data. Days fetched by earlier requests are served from an in-memory cache
+	 * or, for past days, from the embedded database, so only the missing days are
+	 * requested from NeoWs. The info type parameter determines what kind of information should be
 	 * extracted from the fetched data:
 	 * <ul>
 	 * <li>maxMinDiameter: Extracts and returns the maximum and minimum diameter of
@@ -51,8 +130,10 @@ public class NeoWsService {
 	 * "Invalid info type".
 	 * </p>
 	 * <p>
-	 * The method performs date validation to ensure that the date interval is
-	 * within 7 days. If the date format is invalid, or if there is an error in
+	 * The method performs date validation to ensure that the date interval is at
+	 * most {@code neows.max-range-days} long. Ranges longer than the 7 days NeoWs
+	 * accepts per request are fetched as several concurrent requests. If the date
+	 * format is invalid, or if there is an error in
 	 * fetching data from the API, an appropriate error message is returned in the
 	 * list.
 	 * </p>
@@ -68,39 +149,55 @@ public class NeoWsService {
 	 *         errors, the list contains a relevant error message.
 	 * @throws IllegalArgumentException
 	 *             if the startDate or endDate is not in the expected format, or if
-	 *             the date interval is more than 7 days.
+	 *             the date interval is longer than the configured maximum.
 	 */
 	public List<String> fetchDataAndExtractInfo(String startDate, String endDate, String infoType) {
-		if (!isValidDateRange(startDate, endDate)) {
+		return fetchDataAndExtractInfo(startDate, endDate, infoType, ResultWindow.ALL);
+	}
+
+	/**
+	 * Same as {@link #fetchDataAndExtractInfo(String, String, String)}, returning
+	 * only the given window of the sorted relative velocities or miss distances.
+	 * The window is ignored for "maxMinDiameter".
+	 *
+	 * @param window
+	 *            The sort direction and the slice of the sorted approaches to
+	 *            return.
+	 */
+	public List<String> fetchDataAndExtractInfo(String startDate, String endDate, String infoType,
+			ResultWindow window) {
+		Optional<DateRange> range = resolveDateRange(startDate, endDate);
+		if (range.isEmpty()) {
 			return Collections.singletonList("Invalid date format");
 		}
-		// 1. URL building
-		String url = buildUrl(startDate, endDate);
 		try {
-			// 2. Fetch data
-			NeoWsResponse response = restTemplate.getForObject(url, NeoWsResponse.class);
+			// 1. Fetch data, reusing cached days
+			List<NeoWsDay> days = join(loadDaysAsync(range.get(), Priority.INTERACTIVE, false));
 
-			// 3. Validation
-			if (response == null || response.getNear_earth_objects() == null) {
+			// 2. Validation
+			if (days == null) {
 				logger.error("No data received from NeoWs for date range {} to {}", startDate, endDate);
 				return Collections.singletonList("No data available");
 			}
 
-			// 4. Logging
-			response.getNear_earth_objects().keySet().forEach(date -> logger.debug("Received data for date: {}", date));
+			// 3. Logging
+			logReceivedData(days);
 
 			List<String> extractedInfo = new ArrayList<>();
 
 			if ("maxMinDiameter".equals(infoType)) {
-				extractedInfo = Utils.extractMaxMinDiameter(response);
+				extractedInfo = extractTimer("maxMinDiameter")
+						.record(() -> Utils.extractMaxMinDiameter(summaryOf(days)));
 				logger.info("Fetched max and min diameter data for date range {} to {}: {}", startDate, endDate,
 						extractedInfo);
 			} else if ("relativeVelocity".equals(infoType)) {
-				extractedInfo = Utils.extractRelativeVelocity(response);
+				extractedInfo = extractTimer("relativeVelocity")
+						.record(() -> Utils.extractRelativeVelocity(columnsOf(days), window));
 				logger.info("Fetched relative Velocity of asteroids data for date range {} to {}: {}", startDate,
 						endDate, extractedInfo);
 			} else if ("missDistances".equals(infoType)) {
-				extractedInfo = Utils.extractMissDistances(response);
+				extractedInfo = extractTimer("missDistances")
+						.record(() -> Utils.extractMissDistances(columnsOf(days), window));
 				logger.info("Fetched relative Velocity of asteroids data for date range {} to {}: {}", startDate,
 						endDate, extractedInfo);
 			} else {
@@ -109,8 +206,11 @@ public class NeoWsService {
 
 			return extractedInfo;
 
+		} catch (NeoWsQuotaExceededException ex) {
+			logger.warn("NeoWs quota exhausted for date range {} to {}: {}", startDate, endDate, ex.getMessage());
+			return Collections.singletonList("NeoWs quota exhausted, please retry later");
 		} catch (RestClientException ex) {
-			// 5. Exception Handling
+			// 4. Exception Handling
 			logger.error("Error fetching data from NeoWs for date range {} to {}. Error: {}", startDate, endDate,
 					ex.getMessage());
 			return Collections.singletonList("Error fetching data");
@@ -128,9 +228,9 @@ public class NeoWsService {
 	 *
 	 * <ul>
 	 * <li>Validates the provided date range before making the request.</li>
-	 * <li>Constructs the appropriate URL for the NeoWs service.</li>
-	 * <li>Fetches the near-earth objects data from the NeoWs service for the
-	 * specified date range.</li>
+	 * <li>Reuses the days of the range that are already cached or stored.</li>
+	 * <li>Fetches the near-earth objects data of the remaining days from the
+	 * NeoWs service, caches it and persists the past days.</li>
 	 * <li>Logs received data for debugging and traceability.</li>
 	 * <li>Based on the provided info type, extracts and returns the relevant data:
 	 * <ul>
@@ -140,11 +240,19 @@ public class NeoWsService {
 	 * asteroids.</li>
 	 * <li>"missDistances": Extracts and returns the miss distances of the
 	 * asteroids.</li>
+	 * <li>"summary": Extracts and returns the counts, extreme diameters and mean
+	 * figures of the asteroids.</li>
 	 * </ul>
 	 * </li>
 	 * </ul>
 	 *
 	 * <p>
+	 * The diameters and the summary are merged from the statistics each day was
+	 * reduced to when it was received, so they cost one step per day of the
+	 * range rather than one per asteroid.
+	 * </p>
+	 *
+	 * <p>
 	 * If any error occurs during the fetch operation, such as a
 	 * RestClientException, the error is logged and an empty optional is returned.
 	 * Similarly, if the response from NeoWs is null or incomplete, the method
@@ -159,107 +267,958 @@ public class NeoWsService {
 	 *            "YYYY-MM-DD" format.
 	 * @param infoType
 	 *            The type of information to extract. Acceptable values are
-	 *            "maxMinDiameter", "relativeVelocity", and "missDistances".
+	 *            "maxMinDiameter", "relativeVelocity", "missDistances", and
+	 *            "summary".
 	 * @return An {@link Optional} containing the extracted information. If no data
 	 *         can be extracted or an error occurs, returns an empty
 	 *         {@link Optional}.
 	 */
 	public Optional<Object> fetchDataAndExtractInfoJson(String startDate, String endDate, String infoType) {
-		if (!isValidDateRange(startDate, endDate)) {
-			return Optional.empty();
-		}
+		return fetchDataAndExtractInfoJson(startDate, endDate, infoType, ResultWindow.ALL);
+	}
 
-		String url = buildUrl(startDate, endDate);
+	/**
+	 * Same as {@link #fetchDataAndExtractInfoJson(String, String, String)},
+	 * returning only the given window of the sorted relative velocities or miss
+	 * distances. The window is ignored for "maxMinDiameter" and "summary". A
+	 * limited window is filled by merging the pre-sorted days only as far as
+	 * needed.
+	 *
+	 * @param window
+	 *            The sort direction and the slice of the sorted approaches to
+	 *            return.
+	 */
+	public Optional<Object> fetchDataAndExtractInfoJson(String startDate, String endDate, String infoType,
+			ResultWindow window) {
+		return join(fetchDataAndExtractInfoJsonAsync(startDate, endDate, infoType, window));
+	}
 
-		try {
-			NeoWsResponse response = restTemplate.getForObject(url, NeoWsResponse.class);
+	/**
+	 * Asynchronous form of
+	 * {@link #fetchDataAndExtractInfoJson(String, String, String, ResultWindow)}.
+	 * <p>
+	 * No thread is blocked while the missing days are fetched from NeoWs; the
+	 * returned future completes once they are received, with the same value the
+	 * blocking method returns.
+	 * </p>
+	 * <p>
+	 * When {@link #scansArchive(DateRange)} holds, the "maxMinDiameter" and
+	 * "summary" types are computed by scanning the {@link ApproachArchive}
+	 * instead, without loading the days, and the range may then be longer than
+	 * {@code neows.max-range-days}.
+	 * </p>
+	 */
+	public CompletableFuture<Optional<Object>> fetchDataAndExtractInfoJsonAsync(String startDate, String endDate,
+			String infoType, ResultWindow window) {
+		Optional<DateRange> range = resolveDateRange(startDate, endDate, Long.MAX_VALUE);
+		if (range.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		if (SUMMARY_INFO_TYPES.contains(infoType) && scansArchive(range.get())) {
+			Object extractedInfo = "summary".equals(infoType)
+					? extractTimer("archiveSummary")
+							.record(() -> Utils.extractSummaryJson(DaySummary.of(archive, range.get())))
+					: extractTimer("archiveMaxMinDiameter")
+							.record(() -> Utils.extractMaxMinDiameterJson(DaySummary.of(archive, range.get())));
+			logger.info("Scanned {} for date range {} to {} from the archive: {}", infoType, startDate, endDate,
+					extractedInfo);
+			return CompletableFuture.completedFuture(Optional.of(extractedInfo));
+		}
+		if (range.get().lengthInDays() > maxRangeDays) {
+			logger.error("Date range must not be longer than {} days", maxRangeDays);
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
 
-			if (response == null || response.getNear_earth_objects() == null) {
+		return loadDaysAsync(range.get(), Priority.INTERACTIVE, false).thenApply(days -> {
+			if (days == null) {
 				logger.error("No data received from NeoWs for date range {} to {}", startDate, endDate);
 				return Optional.empty();
 			}
 
-			logReceivedData(response);
+			logReceivedData(days);
 
 			switch (infoType) {
 				case "maxMinDiameter" :
-					Object extractedInfo = Utils.extractMaxMinDiameterJson(response);
+					Object extractedInfo = extractTimer("maxMinDiameter")
+							.record(() -> Utils.extractMaxMinDiameterJson(summaryOf(days)));
 					logger.info("Fetched max and min diameter data for date range {} to {}: {}", startDate, endDate,
 							extractedInfo);
 					return Optional.of(extractedInfo);
 				case "relativeVelocity" :
-					extractedInfo = Utils.extractRelativeVelocityJson(response);
+					extractedInfo = extractTimer("relativeVelocity")
+							.record(() -> Utils.extractRelativeVelocityJson(columnsOf(days), window));
 					logger.info("Fetched relative Velocity of asteroids data for date range {} to {}: {}", startDate,
 							endDate, extractedInfo);
 					return Optional.of(extractedInfo);
 				case "missDistances" :
-					extractedInfo = Utils.extractMissDistancesJson(response);
+					extractedInfo = extractTimer("missDistances")
+							.record(() -> Utils.extractMissDistancesJson(columnsOf(days), window));
 					logger.info("Fetched relative Velocity of asteroids data for date range {} to {}: {}", startDate,
 							endDate, extractedInfo);
 					return Optional.of(extractedInfo);
+				case "summary" :
+					extractedInfo = extractTimer("summary").record(() -> Utils.extractSummaryJson(summaryOf(days)));
+					logger.info("Fetched summary of asteroids data for date range {} to {}: {}", startDate, endDate,
+							extractedInfo);
+					return Optional.of(extractedInfo);
 				default :
 					return Optional.empty();
 			}
+		}).exceptionally(ex -> fetchFailed(ex, startDate, endDate));
+	}
 
-		} catch (RestClientException ex) {
+	/**
+	 * Fetches data related to near-earth objects for the specified date range
+	 * once and extracts several info types from it.
+	 *
+	 * <p>
+	 * The days of the range are loaded a single time, whatever the number of info
+	 * types requested. The result maps each requested info type to the same value
+	 * {@link #fetchDataAndExtractInfoJson} returns for it.
+	 * </p>
+	 *
+	 * @param startDate
+	 *            The start date of the range for which data needs to be fetched, in
+	 *            "YYYY-MM-DD" format.
+	 * @param endDate
+	 *            The end date of the range for which data needs to be fetched, in
+	 *            "YYYY-MM-DD" format.
+	 * @param infoTypes
+	 *            The info types to extract, among "maxMinDiameter",
+	 *            "relativeVelocity", and "missDistances". An empty collection
+	 *            extracts all of them.
+	 * @return An {@link Optional} containing a map from info type to the extracted
+	 *         information, or an error message if an info type is not
+	 *         recognized. If no data can be fetched or an error occurs, returns an
+	 *         empty {@link Optional}.
+	 */
+	public Optional<Object> fetchDataAndExtractAllInfoJson(String startDate, String endDate,
+			Collection<String> infoTypes) {
+		return join(fetchDataAndExtractAllInfoJsonAsync(startDate, endDate, infoTypes));
+	}
+
+	/**
+	 * Asynchronous form of
+	 * {@link #fetchDataAndExtractAllInfoJson(String, String, Collection)}. The
+	 * returned future completes once the missing days are received from NeoWs.
+	 */
+	public CompletableFuture<Optional<Object>> fetchDataAndExtractAllInfoJsonAsync(String startDate,
+			String endDate, Collection<String> infoTypes) {
+		for (String infoType : infoTypes) {
+			if (!JSON_INFO_TYPES.contains(infoType)) {
+				return CompletableFuture.completedFuture(Optional.of("Invalid info type: " + infoType));
+			}
+		}
+		Optional<DateRange> range = resolveDateRange(startDate, endDate);
+		if (range.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+
+		return loadDaysAsync(range.get(), Priority.INTERACTIVE, false).thenApply(days -> {
+			if (days == null) {
+				logger.error("No data received from NeoWs for date range {} to {}", startDate, endDate);
+				return Optional.empty();
+			}
+
+			logReceivedData(days);
+
+			Map<String, Object> extractedInfo = new LinkedHashMap<>();
+			for (String infoType : JSON_INFO_TYPES) {
+				if (infoTypes.isEmpty() || infoTypes.contains(infoType)) {
+					extractedInfo.put(infoType, extractInfoJson(days, infoType));
+				}
+			}
+			logger.info("Fetched {} data for date range {} to {}", extractedInfo.keySet(), startDate, endDate);
+			return Optional.<Object>of(extractedInfo);
+		}).exceptionally(ex -> fetchFailed(ex, startDate, endDate));
+	}
+
+	/**
+	 * Fetches data related to near-earth objects for the specified date range and
+	 * prepares the sorted relative velocities or miss distances to be streamed by
+	 * an encoder, as newline-delimited JSON or in the columnar binary layout.
+	 *
+	 * <p>
+	 * Nothing is extracted up front: the encoders merge the pre-sorted days
+	 * while they write, so the records reach the client as they are produced and
+	 * no list of DTOs is built.
+	 * </p>
+	 *
+	 * @param startDate
+	 *            The start date of the range, in "YYYY-MM-DD" format.
+	 * @param endDate
+	 *            The end date of the range, in "YYYY-MM-DD" format.
+	 * @param infoType
+	 *            "relativeVelocity" or "missDistances".
+	 * @param window
+	 *            The sort direction and the slice of the sorted approaches to
+	 *            write.
+	 * @return A future of an {@link Optional} containing the
+	 *         {@link SortedApproaches}, or an error message if the info type is
+	 *         not recognized. The {@link Optional} is empty if no data can be
+	 *         fetched.
+	 */
+	public CompletableFuture<Optional<Object>> fetchSortedApproachesAsync(String startDate, String endDate,
+			String infoType, ResultWindow window) {
+		ApproachMetric metric;
+		String valueField;
+		switch (infoType) {
+			case "relativeVelocity" :
+				metric = ApproachMetric.RELATIVE_VELOCITY;
+				valueField = "velocity";
+				break;
+			case "missDistances" :
+				metric = ApproachMetric.MISS_DISTANCE;
+				valueField = "distance";
+				break;
+			default :
+				return CompletableFuture.completedFuture(Optional.of("Invalid info type: " + infoType));
+		}
+		Optional<DateRange> range = resolveDateRange(startDate, endDate);
+		if (range.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+
+		return loadDaysAsync(range.get(), Priority.INTERACTIVE, false).thenApply(days -> {
+			if (days == null) {
+				logger.error("No data received from NeoWs for date range {} to {}", startDate, endDate);
+				return Optional.empty();
+			}
+
+			logReceivedData(days);
+
+			logger.info("Streaming {} for date range {} to {}", infoType, startDate, endDate);
+			return Optional.<Object>of(new SortedApproaches(columnsOf(days), metric, valueField, window));
+		}).exceptionally(ex -> fetchFailed(ex, startDate, endDate));
+	}
+
+	/**
+	 * Fetches data related to near-earth objects for the specified date range and
+	 * bins the values of one metric of their close approaches.
+	 *
+	 * <p>
+	 * The distribution is binned and summarized on the server, so clients plot
+	 * a fixed number of bins whatever the length of the range. When
+	 * {@link #scansArchive(DateRange)} holds, the range is scanned from the
+	 * mapped segments of the {@link ApproachArchive}, without loading the days,
+	 * and may then be longer than {@code neows.max-range-days}.
+	 * </p>
+	 *
+	 * @param startDate
+	 *            The start date of the range, in "YYYY-MM-DD" format.
+	 * @param endDate
+	 *            The end date of the range, in "YYYY-MM-DD" format.
+	 * @param metric
+	 *            The metric to bin, among "relativeVelocity", "missDistances", and
+	 *            "diameter".
+	 * @param bins
+	 *            The number of bins, from 1 to 1000.
+	 * @param scale
+	 *            "linear" for bins of equal width, or "log" for bins of equal width
+	 *            in log space.
+	 * @return A future of an {@link Optional} containing the
+	 *         {@link HistogramDTO}, or an error message if a parameter is
+	 *         invalid. The {@link Optional} is empty if no data can be fetched.
+	 */
+	public CompletableFuture<Optional<Object>> fetchHistogramJsonAsync(String startDate, String endDate,
+			String metric, int bins, String scale) {
+		if (!APPROACH_METRICS.containsKey(metric)) {
+			return CompletableFuture.completedFuture(Optional.of("Invalid metric: " + metric));
+		}
+		if (bins < 1 || bins > MAX_HISTOGRAM_BINS) {
+			return CompletableFuture.completedFuture(
+					Optional.of("Invalid bin count: " + bins + ", expected 1 to " + MAX_HISTOGRAM_BINS));
+		}
+		if (!"linear".equals(scale) && !"log".equals(scale)) {
+			return CompletableFuture.completedFuture(Optional.of("Invalid scale: " + scale));
+		}
+		Optional<DateRange> range = resolveDateRange(startDate, endDate, Long.MAX_VALUE);
+		if (range.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		if (scansArchive(range.get())) {
+			HistogramDTO histogram = extractTimer("archiveHistogram").record(() -> Utils.extractHistogramJson(
+					archive, range.get(), APPROACH_METRICS.get(metric), metric, bins, "log".equals(scale)));
+			logger.info("Scanned {} histogram for date range {} to {} from the archive: {}", metric, startDate,
+					endDate, histogram);
+			return CompletableFuture.completedFuture(Optional.of(histogram));
+		}
+		if (range.get().lengthInDays() > maxRangeDays) {
+			logger.error("Date range must not be longer than {} days", maxRangeDays);
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+
+		return loadDaysAsync(range.get(), Priority.INTERACTIVE, false).thenApply(days -> {
+			if (days == null) {
+				logger.error("No data received from NeoWs for date range {} to {}", startDate, endDate);
+				return Optional.empty();
+			}
+
+			logReceivedData(days);
+
+			HistogramDTO histogram = extractTimer("histogram").record(() -> Utils.extractHistogramJson(
+					columnsOf(days), APPROACH_METRICS.get(metric), metric, bins, "log".equals(scale)));
+			logger.info("Fetched {} histogram for date range {} to {}: {}", metric, startDate, endDate, histogram);
+			return Optional.<Object>of(histogram);
+		}).exceptionally(ex -> fetchFailed(ex, startDate, endDate));
+	}
+
+	/**
+	 * Fetches data related to near-earth objects for the specified date range and
+	 * estimates quantiles of one metric of their close approaches.
+	 *
+	 * <p>
+	 * The quantiles are read from the merge of the sketches each day was reduced
+	 * to when it was received, so the cost and the memory used depend on the
+	 * number of days and the spread of the values, not on the number of
+	 * approaches. When {@link #scansArchive(DateRange)} holds, the sketch is
+	 * built by scanning the {@link ApproachArchive} instead, without loading the
+	 * days, and the range may then be longer than {@code neows.max-range-days}.
+	 * </p>
+	 *
+	 * @param startDate
+	 *            The start date of the range, in "YYYY-MM-DD" format.
+	 * @param endDate
+	 *            The end date of the range, in "YYYY-MM-DD" format.
+	 * @param metric
+	 *            The metric, among "relativeVelocity", "missDistances", and
+	 *            "diameter".
+	 * @param quantiles
+	 *            The quantiles to estimate, 1 to 100 of them, each from 0 to 1.
+	 * @return A future of an {@link Optional} containing the
+	 *         {@link QuantilesDTO}, or an error message if a parameter is
+	 *         invalid. The {@link Optional} is empty if no data can be fetched.
+	 */
+	public CompletableFuture<Optional<Object>> fetchQuantilesJsonAsync(String startDate, String endDate,
+			String metric, List<Double> quantiles) {
+		if (!APPROACH_METRICS.containsKey(metric)) {
+			return CompletableFuture.completedFuture(Optional.of("Invalid metric: " + metric));
+		}
+		if (quantiles.isEmpty() || quantiles.size() > MAX_QUANTILES) {
+			return CompletableFuture.completedFuture(
+					Optional.of("Invalid quantile count: " + quantiles.size() + ", expected 1 to " + MAX_QUANTILES));
+		}
+		for (Double quantile : quantiles) {
+			if (quantile == null || !(quantile >= 0 && quantile <= 1)) {
+				return CompletableFuture.completedFuture(Optional.of("Invalid quantile: " + quantile));
+			}
+		}
+		Optional<DateRange> range = resolveDateRange(startDate, endDate, Long.MAX_VALUE);
+		if (range.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		ApproachMetric approachMetric = APPROACH_METRICS.get(metric);
+		if (scansArchive(range.get())) {
+			QuantilesDTO extractedInfo = extractTimer("archiveQuantiles").record(() -> Utils.extractQuantilesJson(
+					QuantileSketch.of(archive, range.get(), approachMetric), metric, quantiles));
+			logger.info("Scanned {} quantiles for date range {} to {} from the archive: {}", metric, startDate,
+					endDate, extractedInfo);
+			return CompletableFuture.completedFuture(Optional.of(extractedInfo));
+		}
+		if (range.get().lengthInDays() > maxRangeDays) {
+			logger.error("Date range must not be longer than {} days", maxRangeDays);
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+
+		return loadDaysAsync(range.get(), Priority.INTERACTIVE, false).thenApply(days -> {
+			if (days == null) {
+				logger.error("No data received from NeoWs for date range {} to {}", startDate, endDate);
+				return Optional.empty();
+			}
+
+			logReceivedData(days);
+
+			QuantilesDTO extractedInfo = extractTimer("quantiles").record(() -> Utils.extractQuantilesJson(
+					QuantileSketch.merge(days.stream().map(day -> day.sketch(approachMetric)).toList()), metric,
+					quantiles));
+			logger.info("Fetched {} quantiles for date range {} to {}: {}", metric, startDate, endDate,
+					extractedInfo);
+			return Optional.<Object>of(extractedInfo);
+		}).exceptionally(ex -> fetchFailed(ex, startDate, endDate));
+	}
+
+	/**
+	 * Lists the close approaches of one asteroid among the locally held days.
+	 *
+	 * <p>
+	 * Past days are looked up through the index of the {@link NeoWsDayStore} on
+	 * the NeoWs id, so the cost depends on the number of approaches of the
+	 * asteroid, not on the number of days held. Today and later days are looked
+	 * up in the per-day cache. NeoWs is never called: the result covers the days
+	 * fetched so far, for instance by the backfill.
+	 * </p>
+	 *
+	 * @param id
+	 *            The NeoWs id of the asteroid.
+	 * @param startDate
+	 *            The first day to look in, in "YYYY-MM-DD" format, or empty for
+	 *            no lower bound.
+	 * @param endDate
+	 *            The last day to look in, in "YYYY-MM-DD" format, or empty for no
+	 *            upper bound.
+	 * @return An {@link Optional} containing the list of
+	 *         {@link com.darklab.asteroids.dto.AsteroidApproachDTO} in date
+	 *         order, or an error message if the id is invalid. The
+	 *         {@link Optional} is empty if the dates are invalid.
+	 */
+	public Optional<Object> fetchApproachesJson(String id, String startDate, String endDate) {
+		if (StringUtils.isBlank(id)) {
+			return Optional.of("Invalid asteroid id: " + id);
+		}
+		DateRange range;
+		try {
+			range = new DateRange(
+					StringUtils.isEmpty(startDate) ? ALL_DAYS.start() : LocalDate.parse(startDate, DATE_FORMATTER),
+					StringUtils.isEmpty(endDate) ? ALL_DAYS.end() : LocalDate.parse(endDate, DATE_FORMATTER));
+		} catch (DateTimeParseException ex) {
+			logger.error("Invalid date format for '{}' or '{}'. Please use {} format for dates.", startDate, endDate,
+					DATE_FORMAT);
+			return Optional.empty();
+		}
+		if (range.end().isBefore(range.start())) {
+			logger.error("End date '{}' must not be before start date '{}'", range.end(), range.start());
+			return Optional.empty();
+		}
+
+		return Optional.of(extractTimer("approaches").record(() -> {
+			List<Pair<LocalDate, NeoObject>> reports = new ArrayList<>(dayStore.findObjects(id, range));
+			Set<LocalDate> storedDays = new HashSet<>();
+			reports.forEach(report -> storedDays.add(report.first()));
+			for (NeoWsDay day : dayCache.values()) {
+				if (range.contains(day.date()) && !storedDays.contains(day.date())) {
+					day.objects().stream().filter(object -> id.equals(object.getId()))
+							.forEach(object -> reports.add(new Pair<>(day.date(), object)));
+				}
+			}
+			reports.sort(Comparator.comparing(Pair::first));
+			logger.info("Found {} reports of asteroid {} from {} to {}", reports.size(), id, range.start(),
+					range.end());
+			return Utils.extractApproachesJson(reports);
+		}));
+	}
+
+	/**
+	 * Maps a failed upstream fetch to the empty result of the JSON methods, and
+	 * rethrows any other failure, including an exhausted quota so the caller can
+	 * be asked to retry later.
+	 */
+	private static Optional<Object> fetchFailed(Throwable ex, String startDate, String endDate) {
+		Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+		if (cause instanceof RestClientException && !(cause instanceof NeoWsQuotaExceededException)) {
 			logger.error("Error fetching data from NeoWs for date range {} to {}. Error: {}", startDate, endDate,
-					ex.getMessage());
+					cause.getMessage());
 			return Optional.empty();
 		}
+		throw ex instanceof CompletionException completion ? completion : new CompletionException(cause);
 	}
 
-	private boolean isValidDateRange(String startDate, String endDate) {
-		SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
-		Date parsedStartDate = new Date();
-		Date parsedEndDate = new Date();
+	/**
+	 * @return The {@code neows.extract} timer of the given info type.
+	 */
+	private Timer extractTimer(String infoType) {
+		return Timer.builder("neows.extract").description("Time spent extracting an info type from the days")
+				.tag("infoType", infoType).publishPercentileHistogram().register(meterRegistry);
+	}
 
-		if (StringUtils.isEmpty(startDate) && StringUtils.isEmpty(endDate)) {
+	private Object extractInfoJson(List<NeoWsDay> days, String infoType) {
+		return extractTimer(infoType).record(() -> switch (infoType) {
+			case "maxMinDiameter" -> Utils.extractMaxMinDiameterJson(summaryOf(days));
+			case "relativeVelocity" -> Utils.extractRelativeVelocityJson(columnsOf(days), ResultWindow.ALL);
+			case "missDistances" -> Utils.extractMissDistancesJson(columnsOf(days), ResultWindow.ALL);
+			default -> throw new IllegalArgumentException("Invalid info type: " + infoType);
+		});
+	}
+
+	/**
+	 * Loads the given days into the cache ahead of the requests that will need
+	 * them.
+	 * <p>
+	 * Past days are only fetched if they are neither cached nor stored. Days
+	 * from today on are fetched again even if cached, since NeoWs keeps revising
+	 * them, and replace the cached days once received. The fetches run at
+	 * {@link Priority#BACKGROUND} priority, so they never use the quota reserved
+	 * for user requests.
+	 * </p>
+	 *
+	 * @param range
+	 *            The days to prefetch.
+	 * @return A future of the number of days loaded. It completes exceptionally
+	 *         with a {@link RestClientException} if fetching the days fails.
+	 */
+	public CompletableFuture<Integer> prefetch(DateRange range) {
+		return loadDaysAsync(range, Priority.BACKGROUND, true).thenApply(days -> days == null ? 0 : days.size());
+	}
+
+	/**
+	 * Fetches and stores the past days of the given range that the
+	 * {@link NeoWsDayStore} does not hold yet.
+	 * <p>
+	 * This is meant for backfilling history: the fetches run at
+	 * {@link Priority#BACKGROUND} priority, days already stored are skipped
+	 * without being loaded, and the fetched days go to the store only, so a long
+	 * backfill does not evict the days users are querying from the cache. Today
+	 * and later days are never fetched, as they would not be stored. Only runs of
+	 * consecutive missing days are requested, so the stored days between them are
+	 * not fetched again. Days an interactive request is already fetching are
+	 * shared with it rather than requested twice, and the days the backfill
+	 * fetches are claimed the same way while in flight.
+	 * </p>
+	 *
+	 * @param range
+	 *            The days to backfill.
+	 * @return A future of the number of missing days fetched and stored. It completes
+	 *         exceptionally with a {@link RestClientException} if fetching the
+	 *         days fails.
+	 */
+	public CompletableFuture<Integer> backfill(DateRange range) {
+		LocalDate today = LocalDate.now(clock);
+		Set<LocalDate> storedDays = dayStore.findStoredDates(range.days());
+		List<LocalDate> missingDays = range.days().stream()
+				.filter(day -> day.isBefore(today) && !storedDays.contains(day)).toList();
+		if (missingDays.isEmpty()) {
+			return CompletableFuture.completedFuture(0);
+		}
+		List<CompletableFuture<Map<LocalDate, NeoWsDay>>> pending = List
+				.copyOf(claimDays(missingDays, Priority.BACKGROUND, false));
+		return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+			// Joined fetches may cover more days than were missing
+			Set<LocalDate> fetchedDays = new HashSet<>();
+			for (CompletableFuture<Map<LocalDate, NeoWsDay>> fetch : pending) {
+				Map<LocalDate, NeoWsDay> fetched = fetch.join();
+				if (fetched != null) {
+					fetchedDays.addAll(fetched.keySet());
+				}
+			}
+			fetchedDays.retainAll(new HashSet<>(missingDays));
+			return fetchedDays.size();
+		});
+	}
+
+	/**
+	 * Archives days that were just stored. The store skips them from then on,
+	 * so if they cannot be archived, the archive is marked as behind and caught
+	 * up from the stored days after the next append that succeeds.
+	 *
+	 * @return whether the days were archived.
+	 */
+	private boolean appendToArchive(Collection<NeoWsDay> days) {
+		boolean appended;
+		try {
+			appended = archive.append(days);
+		} catch (RuntimeException e) {
+			logger.warn("Cannot archive {} days: {}", days.size(), e.getMessage());
+			appended = false;
+		}
+		if (!appended) {
+			archiveBehind.set(true);
+		}
+		return appended;
+	}
+
+	/**
+	 * Decides whether a query over the range is answered by scanning the
+	 * {@link ApproachArchive} rather than from the days.
+	 * <p>
+	 * A scan costs one step per close approach, while the aggregates each cached
+	 * day was reduced to merge in one step per day. The archive is therefore
+	 * only scanned when it holds every day of the range and the range is either
+	 * too long to load, or has days that are not cached and would otherwise be
+	 * read back from the {@link NeoWsDayStore}.
+	 * </p>
+	 */
+	private boolean scansArchive(DateRange range) {
+		if (!archive.covers(range)) {
+			return false;
+		}
+		if (range.lengthInDays() > maxRangeDays) {
 			return true;
+		}
+		evictDaysEndedSince(LocalDate.now(clock));
+		return range.days().stream().anyMatch(day -> dayCache.get(day).isEmpty());
+	}
+
+	/**
+	 * Archives the stored days the {@link ApproachArchive} does not hold yet.
+	 * <p>
+	 * Days are archived as they are fetched, so this only finds days stored
+	 * before the archive existed, or while it could not be written. It runs at
+	 * startup, and again after a failed append once the archive can be written
+	 * to, so a day stored but not archived does not stay missing. The days are
+	 * loaded and archived one month at a time, so importing years of history
+	 * never holds more than a month of days on the heap. Once every stored day
+	 * is archived, this costs a single query of the stored dates.
+	 * </p>
+	 *
+	 * @return The number of days archived.
+	 */
+	public int archiveStoredDays() {
+		Map<YearMonth, List<LocalDate>> missingByMonth = new TreeMap<>();
+		for (LocalDate day : dayStore.findAllStoredDates()) {
+			if (!archive.contains(day)) {
+				missingByMonth.computeIfAbsent(YearMonth.from(day), month -> new ArrayList<>()).add(day);
+			}
+		}
+		int archived = 0;
+		for (List<LocalDate> monthDays : missingByMonth.values()) {
+			Collection<NeoWsDay> days = dayStore.findDays(monthDays).values();
+			if (appendToArchive(days)) {
+				archived += days.size();
+			}
+		}
+		if (archived > 0) {
+			logger.info("Archived {} stored days over {} months", archived, missingByMonth.size());
+		}
+		return archived;
+	}
+
+	/**
+	 * Loads the days of the given date range, reading through the per-day cache
+	 * and the persistent day store.
+	 * <p>
+	 * Days already held in the cache are reused as they are, and days found in
+	 * the {@link NeoWsDayStore} are loaded into the cache. Days cached while they
+	 * were still current are dropped once they end, so a past day is always
+	 * served as NeoWs reported it after it ended. The remaining days are
+	 * fetched from NeoWs, sharing the fetches concurrent requests already started
+	 * for the same days so a burst of identical requests calls NeoWs only once.
+	 * </p>
+	 *
+	 * @param range
+	 *            The days to assemble the feed for.
+	 * @param priority
+	 *            The priority of the NeoWs requests for the missing days.
+	 * @param refreshCurrent
+	 *            Whether days from today on are fetched again even if cached.
+	 * @return A future of the days of the range that NeoWs reported, in
+	 *         ascending order, or of {@code null} if NeoWs returned no data for
+	 *         one of the missing windows. It completes exceptionally with a
+	 *         {@link RestClientException} if fetching the missing days fails.
+	 */
+	private CompletableFuture<List<NeoWsDay>> loadDaysAsync(DateRange range, Priority priority,
+			boolean refreshCurrent) {
+		LocalDate today = LocalDate.now(clock);
+		evictDaysEndedSince(today);
+		Map<LocalDate, NeoWsDay> days = new TreeMap<>();
+		List<LocalDate> missingDays = new ArrayList<>();
+		for (LocalDate day : range.days()) {
+			Optional<NeoWsDay> cached = refreshCurrent && !day.isBefore(today) ? Optional.empty() : dayCache.get(day);
+			cached.ifPresentOrElse(found -> days.put(day, found), () -> missingDays.add(day));
+		}
+
+		int storedCount = 0;
+		if (!missingDays.isEmpty()) {
+			Map<LocalDate, NeoWsDay> storedDays = dayStore.findDays(missingDays);
+			storedDays.values().forEach(day -> dayCache.put(day.date(), day));
+			days.putAll(storedDays);
+			missingDays.removeAll(storedDays.keySet());
+			storedCount = storedDays.size();
+		}
+		meterRegistry.counter("neows.cache.days", "source", "memory").increment(days.size() - storedCount);
+		meterRegistry.counter("neows.cache.days", "source", "store").increment(storedCount);
+		meterRegistry.counter("neows.cache.days", "source", "upstream").increment(missingDays.size());
+
+		if (missingDays.isEmpty()) {
+			return CompletableFuture.completedFuture(List.copyOf(days.values()));
+		}
+
+		logger.debug("Fetching {} of {} days from NeoWs", missingDays.size(), range.lengthInDays());
+		List<CompletableFuture<Map<LocalDate, NeoWsDay>>> pending = List
+				.copyOf(claimDays(missingDays, priority, true));
+		return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+			for (CompletableFuture<Map<LocalDate, NeoWsDay>> fetch : pending) {
+				Map<LocalDate, NeoWsDay> fetched = fetch.join();
+				if (fetched == null) {
+					return null;
+				}
+				fetched.values().stream().filter(day -> range.contains(day.date()))
+						.forEach(day -> days.putIfAbsent(day.date(), day));
+			}
+			return List.copyOf(days.values());
+		});
+	}
+
+	/**
+	 * Drops the cached days that were current when the cache was last checked
+	 * and have ended since. NeoWs revises a day until it ends, so such a day
+	 * must be fetched again before it can be treated as final.
+	 */
+	private void evictDaysEndedSince(LocalDate today) {
+		LocalDate checkedOn = cacheDate;
+		if (!checkedOn.isBefore(today)) {
+			return;
+		}
+		cacheDate = today;
+		for (NeoWsDay day : dayCache.values()) {
+			if (!day.date().isBefore(checkedOn) && day.date().isBefore(today)) {
+				dayCache.invalidate(day.date());
+			}
+		}
+	}
+
+	/**
+	 * Returns the pending fetches covering the given missing days.
+	 * <p>
+	 * Days already being fetched for another request are coalesced onto that
+	 * request's fetch instead of being requested from NeoWs again, provided it
+	 * was requested at the same or a higher priority: an interactive request
+	 * never waits behind a background fetch, which may be held back by the
+	 * {@link NeoWsRateLimiter} while interactive requests are still served. The
+	 * remaining days are split into windows NeoWs accepts in a single request,
+	 * registered as in flight, and requested from NeoWs concurrently.
+	 * </p>
+	 *
+	 * @param missingDays
+	 *            The ascending days neither cached nor stored.
+	 * @param priority
+	 *            The priority of the NeoWs requests started for the days.
+	 * @param cacheDays
+	 *            Whether the fetched days are cached, and a window may span the
+	 *            days between missing ones. Without caching, the days in between
+	 *            are stored, so they are not requested again.
+	 * @return The distinct fetches to wait for. Each one may cover days outside
+	 *         of the requested ones when it was started by another request.
+	 */
+	private Collection<CompletableFuture<Map<LocalDate, NeoWsDay>>> claimDays(List<LocalDate> missingDays,
+			Priority priority, boolean cacheDays) {
+		Set<CompletableFuture<Map<LocalDate, NeoWsDay>>> pending = new LinkedHashSet<>();
+		Map<DateRange, CompletableFuture<Map<LocalDate, NeoWsDay>>> started = new LinkedHashMap<>();
+		synchronized (inFlightDays) {
+			List<LocalDate> unclaimedDays = new ArrayList<>();
+			for (LocalDate day : missingDays) {
+				InFlightFetch inFlight = inFlightDays.get(day);
+				if (inFlight == null || inFlight.priority().compareTo(priority) > 0) {
+					unclaimedDays.add(day);
+				} else if (pending.add(inFlight.future())) {
+					coalescedFetches.incrementAndGet();
+				}
+			}
+			for (DateRange window : splitIntoWindows(unclaimedDays, cacheDays)) {
+				InFlightFetch fetch = new InFlightFetch(new CompletableFuture<>(), priority);
+				unclaimedDays.stream().filter(window::contains).forEach(day -> inFlightDays.put(day, fetch));
+				started.put(window, fetch.future());
+				pending.add(fetch.future());
+			}
+		}
+		if (pending.size() > started.size()) {
+			logger.debug("Coalesced onto {} in-flight NeoWs fetches", pending.size() - started.size());
+		}
+		started.forEach((window, fetch) -> startFetch(window, fetch, priority, cacheDays));
+		return pending;
+	}
+
+	/**
+	 * Requests a window from NeoWs and completes the given future with
+	 * its days once they are cached, if asked to, and stored, releasing the
+	 * window's days for later fetches.
+	 */
+	private void startFetch(DateRange window, CompletableFuture<Map<LocalDate, NeoWsDay>> fetch,
+			Priority priority, boolean cacheDays) {
+		upstreamFetches.incrementAndGet();
+		LocalDate requestedOn = LocalDate.now(clock);
+		neoWsClient.fetchFeedAsync(window.start(), window.end(), priority)
+				.thenApply(fetched -> storeWindow(fetched, requestedOn, cacheDays))
+				.whenComplete((days, ex) -> {
+					synchronized (inFlightDays) {
+						window.days().forEach(day -> inFlightDays
+								.computeIfPresent(day, (ignored, inFlight) -> inFlight.future() == fetch ? null : inFlight));
+					}
+					if (ex != null) {
+						fetch.completeExceptionally(ex);
+					} else {
+						fetch.complete(days);
+					}
+				});
+	}
+
+	/**
+	 * Caches the days received from NeoWs for subsequent requests, and persists
+	 * the days that had ended when they were requested so they survive a restart.
+	 * Days that were current when requested but have ended by the time NeoWs
+	 * answered are neither cached nor stored, as they may predate NeoWs' final
+	 * revision of them.
+	 *
+	 * @param requestedOn
+	 *            The day on which the window was requested.
+	 * @param cacheDays
+	 *            Whether the days are cached, or only stored.
+	 * @return The days NeoWs reported for the window, or {@code null} if it
+	 *         returned no data.
+	 */
+	private Map<LocalDate, NeoWsDay> storeWindow(NeoWsResponse fetched, LocalDate requestedOn,
+			boolean cacheDays) {
+		if (fetched == null || fetched.getNear_earth_objects() == null) {
+			return null;
+		}
+		LocalDate today = LocalDate.now(clock);
+		Map<LocalDate, NeoWsDay> days = daysOf(fetched);
+		List<NeoWsDay> endedDays = days.values().stream().filter(day -> day.date().isBefore(requestedOn)).toList();
+		if (cacheDays) {
+			days.values().stream().filter(day -> day.date().isBefore(requestedOn) || !day.date().isBefore(today))
+					.forEach(day -> dayCache.put(day.date(), day));
+		}
+		dayStore.saveDays(endedDays);
+		if (appendToArchive(endedDays) && archiveBehind.compareAndSet(true, false)) {
+			archiveStoredDays();
+		}
+		return days;
+	}
+
+	/**
+	 * @return The days of a NeoWs response by date, empty if it holds no data.
+	 */
+	private static Map<LocalDate, NeoWsDay> daysOf(NeoWsResponse fetched) {
+		Map<LocalDate, NeoWsDay> days = new TreeMap<>();
+		if (fetched != null && fetched.getNear_earth_objects() != null) {
+			fetched.getNear_earth_objects().forEach((date, objects) -> {
+				NeoWsDay day = NeoWsDay.of(LocalDate.parse(date, DATE_FORMATTER), objects);
+				days.put(day.date(), day);
+			});
+		}
+		return days;
+	}
+
+	/**
+	 * @return The number of requests made to NeoWs for missing days.
+	 */
+	public long getUpstreamFetchCount() {
+		return upstreamFetches.get();
+	}
+
+	/**
+	 * @return The number of times a request waited on a fetch already started by
+	 *         a concurrent request instead of requesting the days again.
+	 */
+	public long getCoalescedFetchCount() {
+		return coalescedFetches.get();
+	}
+
+	/**
+	 * Merges the summaries the days were reduced to when created, so the
+	 * statistics of a range cost one step per day.
+	 */
+	private static DaySummary summaryOf(List<NeoWsDay> days) {
+		return DaySummary.merge(days.stream().map(NeoWsDay::summary).toList());
+	}
+
+	private static List<CloseApproachColumns> columnsOf(List<NeoWsDay> days) {
+		return days.stream().map(NeoWsDay::columns).toList();
+	}
+
+	/**
+	 * Splits the given ascending days into the fewest windows NeoWs accepts in a
+	 * single request. Each window spans from one missing day to the last missing
+	 * day at most {@value #UPSTREAM_WINDOW_DAYS} days after it.
+	 *
+	 * @param bridgeGaps
+	 *            Whether a window may span days that are not among the given
+	 *            ones. If not, a window also ends at the first gap.
+	 */
+	private static List<DateRange> splitIntoWindows(List<LocalDate> sortedDays, boolean bridgeGaps) {
+		List<DateRange> windows = new ArrayList<>();
+		LocalDate windowStart = null;
+		LocalDate windowEnd = null;
+		for (LocalDate day : sortedDays) {
+			if (windowStart != null && (day.isAfter(windowStart.plusDays(UPSTREAM_WINDOW_DAYS))
+					|| !bridgeGaps && day.isAfter(windowEnd.plusDays(1)))) {
+				windows.add(new DateRange(windowStart, windowEnd));
+				windowStart = null;
+			}
+			if (windowStart == null) {
+				windowStart = day;
+			}
+			windowEnd = day;
+		}
+		if (windowStart != null) {
+			windows.add(new DateRange(windowStart, windowEnd));
+		}
+		return windows;
+	}
+
+	/**
+	 * Waits for an upstream fetch, rethrowing its {@link RuntimeException} as is
+	 * so callers can keep handling {@link RestClientException}.
+	 */
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Parses and validates the requested date range.
+	 * <p>
+	 * If only one of the dates is given, the range covers that single day. If
+	 * neither is given, the range defaults to the NeoWs default of the next 7
+	 * days starting today. Ranges longer than what NeoWs accepts in one request
+	 * are allowed up to {@code neows.max-range-days} days.
+	 * </p>
+	 *
+	 * @return The normalized range, or an empty {@link Optional} if a date is
+	 *         malformed, the end date is before the start date or the range is
+	 *         longer than the configured maximum.
+	 */
+	private Optional<DateRange> resolveDateRange(String startDate, String endDate) {
+		return resolveDateRange(startDate, endDate, maxRangeDays);
+	}
+
+	/**
+	 * Parses and validates the requested date range, allowing ranges up to the
+	 * given number of days.
+	 */
+	private Optional<DateRange> resolveDateRange(String startDate, String endDate, long maxDays) {
+		LocalDate parsedStartDate;
+		LocalDate parsedEndDate;
+
+		if (StringUtils.isEmpty(startDate) && StringUtils.isEmpty(endDate)) {
+			parsedStartDate = LocalDate.now(clock);
+			parsedEndDate = parsedStartDate.plusDays(UPSTREAM_WINDOW_DAYS);
 		} else if (StringUtils.isEmpty(startDate)) {
 			try {
-				parsedEndDate = dateFormat.parse(endDate);
+				parsedEndDate = LocalDate.parse(endDate, DATE_FORMATTER);
 				parsedStartDate = parsedEndDate; // Set startDate to endDate
-			} catch (ParseException ex) {
+			} catch (DateTimeParseException ex) {
 				logger.error("Invalid end date format '{}'. Please use {} format for dates.", endDate, DATE_FORMAT);
-				return false;
+				return Optional.empty();
 			}
 		} else if (StringUtils.isEmpty(endDate)) {
 			try {
-				parsedStartDate = dateFormat.parse(startDate);
+				parsedStartDate = LocalDate.parse(startDate, DATE_FORMATTER);
 				parsedEndDate = parsedStartDate; // Set endDate to startDate
-			} catch (ParseException ex) {
+			} catch (DateTimeParseException ex) {
 				logger.error("Invalid start date format '{}'. Please use {} format for dates.", startDate, DATE_FORMAT);
-				return false;
+				return Optional.empty();
 			}
 		} else {
 			try {
-				parsedStartDate = dateFormat.parse(startDate);
-				parsedEndDate = dateFormat.parse(endDate);
-			} catch (ParseException ex) {
+				parsedStartDate = LocalDate.parse(startDate, DATE_FORMATTER);
+				parsedEndDate = LocalDate.parse(endDate, DATE_FORMATTER);
+			} catch (DateTimeParseException ex) {
 				logger.error("Invalid date format for '{}' or '{}'. Please use {} format for dates.", startDate,
 						endDate, DATE_FORMAT);
-				return false;
+				return Optional.empty();
 			}
 		}
 
-		long intervalMillis = parsedEndDate.getTime() - parsedStartDate.getTime();
-		long maxIntervalMillis = TimeUnit.DAYS.toMillis(MAX_INTERVAL_DAYS);
-
-		if (intervalMillis < 0 || intervalMillis > maxIntervalMillis) {
-			logger.error("Date interval must be within 0 to {} days", MAX_INTERVAL_DAYS);
-			return false;
+		if (parsedEndDate.isBefore(parsedStartDate)) {
+			logger.error("End date '{}' must not be before start date '{}'", parsedEndDate, parsedStartDate);
+			return Optional.empty();
+		}
+		DateRange range = new DateRange(parsedStartDate, parsedEndDate);
+		if (range.lengthInDays() > maxDays) {
+			logger.error("Date range must not be longer than {} days", maxDays);
+			return Optional.empty();
 		}
 
-		return true;
-	}
-
-	private String buildUrl(String startDate, String endDate) {
-		return UriComponentsBuilder.fromHttpUrl(BASE_URL).queryParam("start_date", startDate)
-				.queryParam("end_date", endDate).queryParam("api_key", apiKey).toUriString();
+		return Optional.of(range);
 	}
 
-	private void logReceivedData(NeoWsResponse response) {
-		response.getNear_earth_objects().keySet().forEach(date -> logger.debug("Received data for date: {}", date));
+	private void logReceivedData(List<NeoWsDay> days) {
+		days.forEach(day -> logger.debug("Received data for date: {}", day.date()));
 	}
 
 }
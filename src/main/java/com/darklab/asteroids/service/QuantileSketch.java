@@ -0,0 +1,248 @@
+package com.darklab.asteroids.service;
+
+import java.util.Collection;
+
+/**
+ * Mergeable quantile sketch with a bounded relative error, in the manner of
+ * DDSketch.
+ *
+ * <p>
+ * Positive values are counted in logarithmic buckets: bucket {@code i} holds
+ * the values in {@code (gamma^(i-1), gamma^i]}, with
+ * {@code gamma = (1 + a) / (1 - a)} for the relative accuracy {@code a}. Any
+ * quantile read back is within {@code a} times the exact value, whatever the
+ * number of values counted. Zero and negative values share a single bucket
+ * read back as zero. The number of buckets is capped; past the cap the lowest
+ * buckets are folded together, which only degrades the smallest quantiles.
+ * </p>
+ *
+ * <p>
+ * Two sketches of the same accuracy merge by adding their bucket counts, so
+ * the sketch of a range is the merge of the sketches of its days. The cost of
+ * merging depends on the spread of the values, not on their number.
+ * </p>
+ *
+ * <p>
+ * A sketch is immutable once returned.
+ * </p>
+ */
+public final class QuantileSketch {
+	/**
+	 * Relative accuracy of the sketches built per day.
+	 */
+	public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+	/**
+	 * Upper bound on the buckets of a sketch. At the default accuracy this spans
+	 * about 17 orders of magnitude.
+	 */
+	public static final int MAX_BUCKETS = 2048;
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+	private long count;
+	private long zeroCount;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+	/**
+	 * Counts of the buckets from {@code offset} on. Empty until a positive value
+	 * is added.
+	 */
+	private long[] buckets = new long[0];
+	private int offset;
+
+	private QuantileSketch(double relativeAccuracy) {
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+	}
+
+	/**
+	 * Sketches the known values of a metric over the given close approaches, at
+	 * the {@link #DEFAULT_RELATIVE_ACCURACY default accuracy}.
+	 */
+	public static QuantileSketch of(CloseApproachColumns columns, ApproachMetric metric) {
+		QuantileSketch sketch = new QuantileSketch(DEFAULT_RELATIVE_ACCURACY);
+		int[] order = columns.order(metric);
+		int firstPositive = 0;
+		while (firstPositive < order.length && columns.value(metric, order[firstPositive]) <= 0) {
+			firstPositive++;
+		}
+		if (firstPositive < order.length) {
+			// The values are sorted, so the buckets are sized once from the extremes
+			sketch.ensureRange(sketch.indexOf(columns.value(metric, order[firstPositive])),
+					sketch.indexOf(columns.value(metric, order[order.length - 1])));
+		}
+		for (int row : order) {
+			sketch.add(columns.value(metric, row), 1);
+		}
+		return sketch;
+	}
+
+	/**
+	 * Sketches the known values of a metric over the archived close approaches
+	 * of a range, at the {@link #DEFAULT_RELATIVE_ACCURACY default accuracy}, in a
+	 * single scan of the mapped records. The buckets are the same as those of
+	 * the merged sketches of the days.
+	 */
+	public static QuantileSketch of(ApproachArchive archive, DateRange range, ApproachMetric metric) {
+		QuantileSketch sketch = new QuantileSketch(DEFAULT_RELATIVE_ACCURACY);
+		archive.scan(range, metric, value -> sketch.add(value, 1));
+		return sketch;
+	}
+
+	/**
+	 * Combines the given sketches into the sketch of all their values.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the sketches do not share the same accuracy.
+	 */
+	public static QuantileSketch merge(Collection<QuantileSketch> sketches) {
+		double relativeAccuracy = sketches.isEmpty()
+				? DEFAULT_RELATIVE_ACCURACY
+				: sketches.iterator().next().relativeAccuracy;
+		QuantileSketch merged = new QuantileSketch(relativeAccuracy);
+		int low = Integer.MAX_VALUE;
+		int high = Integer.MIN_VALUE;
+		for (QuantileSketch sketch : sketches) {
+			if (sketch.relativeAccuracy != relativeAccuracy) {
+				throw new IllegalArgumentException("Cannot merge sketches of accuracy " + relativeAccuracy + " and "
+						+ sketch.relativeAccuracy);
+			}
+			if (sketch.buckets.length > 0) {
+				low = Math.min(low, sketch.offset);
+				high = Math.max(high, sketch.offset + sketch.buckets.length - 1);
+			}
+		}
+		if (low <= high) {
+			merged.ensureRange(low, high);
+		}
+		for (QuantileSketch sketch : sketches) {
+			merged.count += sketch.count;
+			merged.zeroCount += sketch.zeroCount;
+			merged.min = Math.min(merged.min, sketch.min);
+			merged.max = Math.max(merged.max, sketch.max);
+			for (int i = 0; i < sketch.buckets.length; i++) {
+				if (sketch.buckets[i] > 0) {
+					merged.addToBucket(sketch.offset + i, sketch.buckets[i]);
+				}
+			}
+		}
+		return merged;
+	}
+
+	private void add(double value, long times) {
+		count += times;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		if (value <= 0) {
+			zeroCount += times;
+		} else {
+			addToBucket(indexOf(value), times);
+		}
+	}
+
+	private int indexOf(double value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	private void addToBucket(int index, long times) {
+		ensureRange(index, index);
+		buckets[Math.max(0, index - offset)] += times;
+	}
+
+	/**
+	 * Grows the buckets to cover the indexes from {@code low} to {@code high}.
+	 * Indexes that do not fit under {@link #MAX_BUCKETS} are folded into the
+	 * lowest bucket.
+	 */
+	private void ensureRange(int low, int high) {
+		if (buckets.length == 0) {
+			offset = Math.max(low, high - MAX_BUCKETS + 1);
+			buckets = new long[high - offset + 1];
+			return;
+		}
+		int currentHigh = offset + buckets.length - 1;
+		int newHigh = Math.max(high, currentHigh);
+		int newLow = Math.max(Math.min(low, offset), newHigh - MAX_BUCKETS + 1);
+		if (newLow == offset && newHigh == currentHigh) {
+			return;
+		}
+		long[] grown = new long[newHigh - newLow + 1];
+		for (int i = 0; i < buckets.length; i++) {
+			grown[Math.max(0, offset + i - newLow)] += buckets[i];
+		}
+		buckets = grown;
+		offset = newLow;
+	}
+
+	/**
+	 * Estimates a quantile of the sketched values.
+	 *
+	 * @param quantile
+	 *            The quantile, from 0 for the minimum to 1 for the maximum.
+	 * @return The estimated value, or NaN if the sketch is empty.
+	 */
+	public double quantile(double quantile) {
+		if (!(quantile >= 0 && quantile <= 1)) {
+			throw new IllegalArgumentException("Invalid quantile: " + quantile);
+		}
+		if (count == 0) {
+			return Double.NaN;
+		}
+		if (quantile == 0) {
+			return min;
+		}
+		if (quantile == 1) {
+			return max;
+		}
+		long rank = (long) (quantile * (count - 1));
+		long seen = zeroCount;
+		if (rank < seen) {
+			return Math.max(min, 0);
+		}
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (rank < seen) {
+				double estimate = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+				return Math.max(min, Math.min(max, estimate));
+			}
+		}
+		return max;
+	}
+
+	public double relativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * @return the smallest sketched value, or NaN if the sketch is empty.
+	 */
+	public double min() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * @return the largest sketched value, or NaN if the sketch is empty.
+	 */
+	public double max() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * @return the number of buckets the sketch holds, which bounds its memory.
+	 */
+	public int bucketCount() {
+		return buckets.length;
+	}
+
+	@Override
+	public String toString() {
+		return "QuantileSketch{" + "relativeAccuracy=" + relativeAccuracy + ", count=" + count + ", buckets="
+				+ buckets.length + '}';
+	}
+}
@@ -0,0 +1,75 @@
+package com.darklab.asteroids.service;
+
+import java.util.Optional;
+
+/**
+ * Selects a window of a sorted result list: the sort direction, how many
+ * leading entries to skip and how many entries to return at most.
+ *
+ * @param offset
+ *            the number of leading entries to skip.
+ * @param limit
+ *            the maximum number of entries to return, or {@link #UNLIMITED}.
+ * @param descending
+ *            whether the entries are sorted in descending instead of ascending
+ *            order.
+ */
+public record ResultWindow(int offset, int limit, boolean descending) {
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	/**
+	 * Every entry, in ascending order.
+	 */
+	public static final ResultWindow ALL = new ResultWindow(0, UNLIMITED, false);
+
+	public ResultWindow {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("offset and limit must not be negative");
+		}
+	}
+
+	/**
+	 * Creates a window from request parameters.
+	 *
+	 * @param offset
+	 *            the number of leading entries to skip, or {@code null} for 0.
+	 * @param limit
+	 *            the maximum number of entries, or {@code null} for no limit.
+	 * @param order
+	 *            "asc" or "desc", or {@code null} for ascending order.
+	 * @return the window, or an empty {@link Optional} if a parameter is invalid.
+	 */
+	public static Optional<ResultWindow> of(Integer offset, Integer limit, String order) {
+		if ((offset != null && offset < 0) || (limit != null && limit < 0)) {
+			return Optional.empty();
+		}
+		if (order != null && !"asc".equalsIgnoreCase(order) && !"desc".equalsIgnoreCase(order)) {
+			return Optional.empty();
+		}
+		return Optional.of(new ResultWindow(offset == null ? 0 : offset, limit == null ? UNLIMITED : limit,
+				"desc".equalsIgnoreCase(order)));
+	}
+
+	/**
+	 * @return whether the window returns a bounded number of entries.
+	 */
+	public boolean isLimited() {
+		return limit != UNLIMITED;
+	}
+
+	/**
+	 * @return the number of entries of a sorted list of {@code total} entries that
+	 *         fall into this window.
+	 */
+	public int sizeOf(int total) {
+		return Math.max(0, Math.min(limit, total - offset));
+	}
+
+	/**
+	 * @return the number of leading entries of the sorted list needed to fill
+	 *         this window.
+	 */
+	public int end() {
+		return (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+	}
+}
@@ -0,0 +1,142 @@
+package com.darklab.asteroids.service;
+
+import java.util.List;
+
+/**
+ * Iterates the close approaches of several days in the order of one
+ * {@link ApproachMetric}, by merging the sort permutations precomputed in each
+ * day's {@link CloseApproachColumns}.
+ *
+ * <p>
+ * The merge keeps a small heap with one head per day, so walking the first
+ * {@code n} approaches of {@code d} days costs {@code O(n log d)} and allocates
+ * nothing per approach. In ascending order approaches with equal values keep
+ * the order of the days, then their order within a day; descending order is
+ * the exact reverse. Approaches without a value for the metric are skipped.
+ * </p>
+ *
+ * <p>
+ * Usage: call {@link #next()} and, while it returns {@code true}, read the
+ * current approach with {@link #name()} and {@link #value()}.
+ * </p>
+ */
+public final class SortedApproachCursor {
+	private final List<CloseApproachColumns> runs;
+	private final ApproachMetric metric;
+	private final boolean descending;
+	private final int[] consumed;
+	private final int[] heap;
+	private int heapSize;
+	private CloseApproachColumns currentRun;
+	private int currentRow = -1;
+
+	public SortedApproachCursor(List<CloseApproachColumns> runs, ApproachMetric metric, boolean descending) {
+		this.runs = runs;
+		this.metric = metric;
+		this.descending = descending;
+		this.consumed = new int[runs.size()];
+		this.heap = new int[runs.size()];
+		for (int run = 0; run < runs.size(); run++) {
+			if (runs.get(run).count(metric) > 0) {
+				heap[heapSize++] = run;
+			}
+		}
+		for (int i = heapSize / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	/**
+	 * @return the number of approaches with a value for the given metric across
+	 *         all the given days.
+	 */
+	public static int count(List<CloseApproachColumns> runs, ApproachMetric metric) {
+		int count = 0;
+		for (CloseApproachColumns run : runs) {
+			count += run.count(metric);
+		}
+		return count;
+	}
+
+	/**
+	 * Moves to the next approach.
+	 *
+	 * @return {@code false} once every approach has been visited.
+	 */
+	public boolean next() {
+		if (heapSize == 0) {
+			currentRun = null;
+			currentRow = -1;
+			return false;
+		}
+		int run = heap[0];
+		currentRun = runs.get(run);
+		currentRow = headRow(run);
+		consumed[run]++;
+		if (consumed[run] == runs.get(run).count(metric)) {
+			heap[0] = heap[--heapSize];
+		}
+		siftDown(0);
+		return true;
+	}
+
+	/**
+	 * Skips up to {@code n} approaches.
+	 *
+	 * @return the number of approaches actually skipped.
+	 */
+	public int skip(int n) {
+		int skipped = 0;
+		while (skipped < n && next()) {
+			skipped++;
+		}
+		return skipped;
+	}
+
+	public String name() {
+		return currentRun.name(currentRow);
+	}
+
+	public double value() {
+		return currentRun.value(metric, currentRow);
+	}
+
+	/**
+	 * @return the value of another metric for the current approach.
+	 */
+	public double value(ApproachMetric other) {
+		return currentRun.value(other, currentRow);
+	}
+
+	private int headRow(int run) {
+		int[] order = runs.get(run).order(metric);
+		int position = consumed[run];
+		return descending ? order[order.length - 1 - position] : order[position];
+	}
+
+	private boolean before(int run, int otherRun) {
+		double value = runs.get(run).value(metric, headRow(run));
+		double otherValue = runs.get(otherRun).value(metric, headRow(otherRun));
+		if (value != otherValue) {
+			return descending ? value > otherValue : value < otherValue;
+		}
+		return descending ? run > otherRun : run < otherRun;
+	}
+
+	private void siftDown(int index) {
+		while (true) {
+			int left = 2 * index + 1;
+			if (left >= heapSize) {
+				return;
+			}
+			int child = left + 1 < heapSize && before(heap[left + 1], heap[left]) ? left + 1 : left;
+			if (!before(heap[child], heap[index])) {
+				return;
+			}
+			int swap = heap[index];
+			heap[index] = heap[child];
+			heap[child] = swap;
+			index = child;
+		}
+	}
+}
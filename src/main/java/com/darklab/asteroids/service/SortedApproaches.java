@@ -0,0 +1,42 @@
+package com.darklab.asteroids.service;
+
+import java.util.List;
+
+/**
+ * The close approaches of several days in the order of one metric, to be
+ * written by a streaming encoder such as {@link ApproachNdjsonWriter} or
+ * {@link ApproachColumnarWriter}.
+ *
+ * <p>
+ * Nothing is extracted when this is created: the encoders merge the pre-sorted
+ * days with a {@link SortedApproachCursor} while they write.
+ * </p>
+ *
+ * @param days
+ *            The columns of the close approaches of each day, in day order.
+ * @param metric
+ *            The metric the approaches are sorted by and that is written.
+ * @param valueField
+ *            The name of the metric in the JSON DTO, such as "velocity".
+ * @param window
+ *            The sort direction and the slice of the sorted approaches to write.
+ */
+public record SortedApproaches(List<CloseApproachColumns> days, ApproachMetric metric, String valueField,
+		ResultWindow window) {
+
+	/**
+	 * @return a cursor positioned before the first approach of the window.
+	 */
+	public SortedApproachCursor cursor() {
+		SortedApproachCursor cursor = new SortedApproachCursor(days, metric, window.descending());
+		cursor.skip(window.offset());
+		return cursor;
+	}
+
+	/**
+	 * @return the number of approaches in the window.
+	 */
+	public int size() {
+		return window.sizeOf(SortedApproachCursor.count(days, metric));
+	}
+}
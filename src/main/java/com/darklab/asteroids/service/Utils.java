@@ -1,263 +1,377 @@
 package com.darklab.asteroids.service;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
 import com.darklab.asteroids.dto.*;
 
 /**
  * Utility class containing methods to extract and format data related to
  * asteroids obtained from NeoWs API.
+ *
+ * <p>
+ * The extractors work on what the service keeps per day: the diameters and
+ * counts come from a merged {@link DaySummary}, and the velocities and miss
+ * distances from the {@link CloseApproachColumns} of each day. Those are
+ * already sorted per day, so the extractors only merge the days instead of
+ * sorting every approach.
+ * </p>
  */
 public class Utils {
 
 	/**
-	 * Extracts and formats the asteroids with the maximum and minimum estimated
-	 * diameters from the provided {@link NeoWsResponse}.
-	 *
-	 * <p>
-	 * This method operates in the following sequence:
-	 * </p>
+	 * Formats the asteroids with the maximum and minimum estimated diameters of
+	 * the given summary.
 	 *
 	 * <ul>
-	 * <li>Flattens the list of near-earth objects from the response into a single
-	 * list of asteroids.</li>
-	 * <li>Computes the maximum estimated diameter of all asteroids.</li>
-	 * <li>Computes the minimum estimated diameter of all asteroids.</li>
-	 * <li>Filters and collects the names of asteroids with the maximum estimated
-	 * diameter.</li>
-	 * <li>Similarly, filters and collects the names of asteroids with the minimum
-	 * estimated diameter.</li>
-	 * <li>Creates a formatted list with the maximum diameter, the asteroids with
-	 * that diameter, the minimum diameter, and the asteroids with that minimum
-	 * diameter.</li>
-	 * <li>If no diameters are available, appropriate default values ("N/A") are
-	 * used.</li>
-	 * <li>Returns a list of formatted strings, where the first string is related to
-	 * the maximum diameter and the second string is related to the minimum
-	 * diameter.</li>
+	 * <li>The first string holds the maximum diameter and the asteroids with that
+	 * diameter, the second one the minimum diameter and its asteroids.</li>
+	 * <li>If no diameters are available, "N/A" is used instead.</li>
 	 * </ul>
 	 *
-	 * @param response
-	 *            The {@link NeoWsResponse} containing near-earth objects data.
+	 * @param summary
+	 *            The {@link DaySummary} of the near-earth objects.
 	 * @return A list of formatted strings representing the asteroids with the
 	 *         maximum and minimum estimated diameters in kilometers, along with the
 	 *         names of those asteroids.
 	 */
-	public static List<String> extractMaxMinDiameter(NeoWsResponse response) {
-		List<NeoObject> allAsteroids = response.getNear_earth_objects().values().stream().flatMap(List::stream)
-				.toList();
-		OptionalDouble maxDiameterValue = allAsteroids.stream()
-				.mapToDouble(asteroid -> asteroid.getEstimated_diameter().getKilometers().getEstimated_diameter_max())
-				.max();
-		OptionalDouble minDiameterValue = allAsteroids.stream()
-				.mapToDouble(asteroid -> asteroid.getEstimated_diameter().getKilometers().getEstimated_diameter_min())
-				.min();
-		List<String> asteroidsWithMaxDiameter = allAsteroids.stream()
-				.filter(asteroid -> asteroid.getEstimated_diameter().getKilometers()
-						.getEstimated_diameter_max() == maxDiameterValue.getAsDouble())
-				.map(NeoObject::getName).toList();
-		List<String> asteroidsWithMinDiameter = allAsteroids.stream()
-				.filter(asteroid -> asteroid.getEstimated_diameter().getKilometers()
-						.getEstimated_diameter_min() == minDiameterValue.getAsDouble())
-				.map(NeoObject::getName).toList();
-
+	public static List<String> extractMaxMinDiameter(DaySummary summary) {
+		OptionalDouble maxDiameterValue = summary.maxDiameter();
+		OptionalDouble minDiameterValue = summary.minDiameter();
 		List<String> result = new ArrayList<>();
 		result.add("Max Diameter: " + (maxDiameterValue.isPresent()
-				? maxDiameterValue.getAsDouble() + " km - Asteroids: " + String.join(", ", asteroidsWithMaxDiameter)
+				? maxDiameterValue.getAsDouble() + " km - Asteroids: " + String.join(", ", summary.maxDiameterNames())
 				: "N/A"));
 		result.add("Min Diameter: " + (minDiameterValue.isPresent()
-				? minDiameterValue.getAsDouble() + " km - Asteroids: " + String.join(", ", asteroidsWithMinDiameter)
+				? minDiameterValue.getAsDouble() + " km - Asteroids: " + String.join(", ", summary.minDiameterNames())
 				: "N/A"));
 
 		return result;
 	}
 
 	/**
-	 * Extracts the maximum and minimum estimated diameters of asteroids from the
-	 * provided {@link NeoWsResponse}.
+	 * Extracts the maximum and minimum estimated diameters of the given summary.
+	 * If no diameters are available, both are set to 0.0.
 	 *
-	 * <p>
-	 * The method performs the following steps:
-	 * </p>
-	 *
-	 * <ul>
-	 * <li>Processes and flattens the list of near-earth objects from the response
-	 * into a single list of asteroids.</li>
-	 * <li>Iterates over each asteroid to find the maximum estimated diameter in
-	 * kilometers.</li>
-	 * <li>Similarly, iterates over each asteroid to find the minimum estimated
-	 * diameter in kilometers.</li>
-	 * <li>If there are no diameters available (i.e., the response doesn't contain
-	 * any valid asteroid data), the default values of 0.0 are set.</li>
-	 * <li>Returns a {@link Diameter} object containing the found max and min
-	 * estimated diameters.</li>
-	 * </ul>
-	 *
-	 * @param response
-	 *            The {@link NeoWsResponse} containing near-earth objects data.
+	 * @param summary
+	 *            The {@link DaySummary} of the near-earth objects.
 	 * @return A {@link Diameter} object representing the maximum and minimum
-	 *         estimated diameters in kilometers of all the asteroids in the
-	 *         provided response.
+	 *         estimated diameters in kilometers of the summarized asteroids.
 	 */
-	public static Diameter extractMaxMinDiameterJson(NeoWsResponse response) {
-		List<NeoObject> allAsteroids = response.getNear_earth_objects().values().stream().flatMap(List::stream)
-				.toList();
-		OptionalDouble maxDiameterValue = allAsteroids.stream()
-				.mapToDouble(asteroid -> asteroid.getEstimated_diameter().getKilometers().getEstimated_diameter_max())
-				.max();
-		OptionalDouble minDiameterValue = allAsteroids.stream()
-				.mapToDouble(asteroid -> asteroid.getEstimated_diameter().getKilometers().getEstimated_diameter_min())
-				.min();
+	public static Diameter extractMaxMinDiameterJson(DaySummary summary) {
 		Diameter diameter = new Diameter();
-		diameter.setEstimated_diameter_max(maxDiameterValue.isPresent() ? maxDiameterValue.getAsDouble() : 0.0);
-		diameter.setEstimated_diameter_min(minDiameterValue.isPresent() ? minDiameterValue.getAsDouble() : 0.0);
+		diameter.setEstimated_diameter_max(summary.maxDiameter().orElse(0.0));
+		diameter.setEstimated_diameter_min(summary.minDiameter().orElse(0.0));
 		return diameter;
 	}
 
 	/**
-	 * Extracts and formats the relative velocities of asteroids from the provided
-	 * {@link NeoWsResponse}.
+	 * Extracts the counts, extreme diameters and means of the given summary.
 	 *
-	 * <p>
-	 * This method performs the following operations:
-	 * </p>
+	 * @param summary
+	 *            The {@link DaySummary} of the near-earth objects.
+	 * @return A {@link SummaryDTO} of the summarized asteroids. The diameters and
+	 *         means are {@code null} when no value is known.
+	 */
+	public static SummaryDTO extractSummaryJson(DaySummary summary) {
+		return new SummaryDTO(summary.objectCount(), summary.hazardousCount(), summary.approachCount(),
+				boxed(summary.maxDiameter()), summary.maxDiameterNames(), boxed(summary.minDiameter()),
+				summary.minDiameterNames(), boxed(summary.meanDiameter()), boxed(summary.meanVelocity()),
+				boxed(summary.meanMissDistance()));
+	}
+
+	private static Double boxed(OptionalDouble value) {
+		return value.isPresent() ? value.getAsDouble() : null;
+	}
+
+	/**
+	 * Formats the relative velocities of the close approaches of the given days
+	 * in the format "name: velocity km/s", ordered by velocity. Approaches
+	 * without a relative velocity are skipped, and only the approaches in the
+	 * requested window are visited.
 	 *
-	 * <ul>
-	 * <li>Processes the near-earth objects from the response and flattens the
-	 * list.</li>
-	 * <li>For each asteroid, retrieves its close approach data to obtain the
-	 * relative velocity in kilometers per second.</li>
-	 * <li>Creates a pair of the asteroid's name and its relative velocity.</li>
-	 * <li>Filters out any pairs where the relative velocity is null.</li>
-	 * <li>Sorts the resulting list of pairs by relative velocity in ascending
-	 * order.</li>
-	 * <li>Formats each velocity with the corresponding asteroid's name in the
-	 * format "name: velocity km/s".</li>
-	 * </ul>
+	 * @param days
+	 *            The columns of the close approaches of each day, in day order.
+	 * @param window
+	 *            The sort direction and the slice of the sorted approaches to
+	 *            return.
+	 * @return A list of strings where each string represents an asteroid's name
+	 *         and its relative velocity, sorted by the relative velocity.
+	 */
+	public static List<String> extractRelativeVelocity(List<CloseApproachColumns> days, ResultWindow window) {
+		SortedApproachCursor cursor = new SortedApproachCursor(days, ApproachMetric.RELATIVE_VELOCITY,
+				window.descending());
+		List<String> result = new ArrayList<>(
+				window.sizeOf(SortedApproachCursor.count(days, ApproachMetric.RELATIVE_VELOCITY)));
+		cursor.skip(window.offset());
+		while (result.size() < window.limit() && cursor.next()) {
+			result.add(String.format("%s: %.3f km/s", cursor.name(), cursor.value()));
+		}
+		return result;
+	}
+
+	/**
+	 * Extracts the relative velocities of the close approaches of the given days
+	 * by merging their pre-sorted columns. Approaches without a relative
+	 * velocity are skipped, and the merge stops once the requested window is
+	 * filled.
 	 *
-	 * @param response
-	 *            The response containing near-earth objects data.
-	 * @return A sorted list of strings where each string represents an asteroid's
-	 *         name and its relative velocity in the format "name: velocity km/s".
-	 *         The list is sorted in ascending order based on the relative velocity.
+	 * @param days
+	 *            The columns of the close approaches of each day, in day order.
+	 * @param window
+	 *            The sort direction and the slice of the sorted approaches to
+	 *            return.
+	 * @return A list of {@link AsteroidVelocityDTO} objects sorted by relative
+	 *         velocity.
 	 */
-	public static List<String> extractRelativeVelocity(NeoWsResponse response) {
-		List<Pair<String, Double>> velocitiesWithNames = response.getNear_earth_objects().values().stream()
-				.flatMap(List::stream)
-				.flatMap(asteroid -> asteroid.getClose_approach_data().stream().map(
-						data -> new Pair<>(asteroid.getName(), data.getRelative_velocity().getKilometers_per_second())))
-				.filter(pair -> Objects.nonNull(pair.second())).sorted(Comparator.comparing(Pair::second)).toList();
-		// Format each velocity value with its asteroid name
-		return velocitiesWithNames.stream().map(pair -> String.format("%s: %.3f km/s", pair.first(), pair.second()))
-				.toList();
+	public static List<AsteroidVelocityDTO> extractRelativeVelocityJson(List<CloseApproachColumns> days, ResultWindow window) {
+		SortedApproachCursor cursor = new SortedApproachCursor(days, ApproachMetric.RELATIVE_VELOCITY,
+				window.descending());
+		List<AsteroidVelocityDTO> result = new ArrayList<>(
+				window.sizeOf(SortedApproachCursor.count(days, ApproachMetric.RELATIVE_VELOCITY)));
+		cursor.skip(window.offset());
+		while (result.size() < window.limit() && cursor.next()) {
+			result.add(new AsteroidVelocityDTO(cursor.name(), cursor.value()));
+		}
+		return result;
+	}
+
+	/**
+	 * Formats the miss distances of the close approaches of the given days in the
+	 * format "name: distance km", ordered by distance. Approaches without a miss
+	 * distance are skipped, and only the approaches in the requested window are
+	 * visited.
+	 *
+	 * @param days
+	 *            The columns of the close approaches of each day, in day order.
+	 * @param window
+	 *            The sort direction and the slice of the sorted approaches to
+	 *            return.
+	 * @return A list of formatted strings representing the miss distances of
+	 *         asteroids in kilometers, each prefixed with the asteroid's name.
+	 */
+	public static List<String> extractMissDistances(List<CloseApproachColumns> days, ResultWindow window) {
+		SortedApproachCursor cursor = new SortedApproachCursor(days, ApproachMetric.MISS_DISTANCE,
+				window.descending());
+		List<String> result = new ArrayList<>(
+				window.sizeOf(SortedApproachCursor.count(days, ApproachMetric.MISS_DISTANCE)));
+		cursor.skip(window.offset());
+		while (result.size() < window.limit() && cursor.next()) {
+			result.add(String.format("%s: %.3f km", cursor.name(), cursor.value()));
+		}
+		return result;
 	}
 
 	/**
-	 * Extracts the relative velocities of asteroids from the provided
-	 * {@link NeoWsResponse}.
+	 * Extracts the miss distances of the close approaches of the given days by
+	 * merging their pre-sorted columns. Approaches without a miss distance are
+	 * skipped, and the merge stops once the requested window is filled.
 	 *
+	 * @param days
+	 *            The columns of the close approaches of each day, in day order.
+	 * @param window
+	 *            The sort direction and the slice of the sorted approaches to
+	 *            return.
+	 * @return A list of {@link AsteroidMissDistanceDTO} objects sorted by miss
+	 *         distance.
+	 */
+	public static List<AsteroidMissDistanceDTO> extractMissDistancesJson(List<CloseApproachColumns> days, ResultWindow window) {
+		SortedApproachCursor cursor = new SortedApproachCursor(days, ApproachMetric.MISS_DISTANCE,
+				window.descending());
+		List<AsteroidMissDistanceDTO> result = new ArrayList<>(
+				window.sizeOf(SortedApproachCursor.count(days, ApproachMetric.MISS_DISTANCE)));
+		cursor.skip(window.offset());
+		while (result.size() < window.limit() && cursor.next()) {
+			result.add(new AsteroidMissDistanceDTO(cursor.name(), cursor.value()));
+		}
+		return result;
+	}
+
+	/**
+	 * Bins the values of a metric over the close approaches of the given days,
+	 * and computes their summary statistics in the same pass.
 	 * <p>
-	 * The method processes the near-earth objects contained in the NeoWsResponse
-	 * and, for each object, fetches its close approach data to obtain the relative
-	 * velocity in kilometers per second. The resulting information is then
-	 * transformed into a list of {@link AsteroidVelocityDTO} objects.
+	 * The bounds of the bins come from the smallest and largest value of each
+	 * day, which its pre-sorted columns give without a scan. With a log scale
+	 * the bins are of equal width in log space and only positive values are
+	 * counted.
 	 * </p>
 	 *
-	 * <ul>
-	 * <li>It starts by flattening the list of near-earth objects.</li>
-	 * <li>For each asteroid, the method retrieves its close approach data.</li>
-	 * <li>It creates a new DTO for each asteroid with the asteroid's name and its
-	 * relative velocity in km/s.</li>
-	 * <li>The method filters out any DTOs where the relati ve velocity is
-	 * null.</li>
-	 * <li>The final list is sorted by the relative velocity in ascending
-	 * order.</li>
-	 * </ul>
-	 *
-	 * @param response
-	 *            The response containing near-earth objects data.
-	 * @return A sorted list of {@link AsteroidVelocityDTO} objects representing the
-	 *         relative velocities of asteroids. The list is sorted in ascending
-	 *         order based on the relative velocity.
+	 * @param days
+	 *            The columns of the close approaches of each day.
+	 * @param metric
+	 *            The metric to bin.
+	 * @param metricName
+	 *            The name of the metric reported in the result.
+	 * @param bins
+	 *            The number of bins, at least 1.
+	 * @param logScale
+	 *            Whether the bins are spaced logarithmically.
+	 * @return The histogram of the metric. It has no bin if there is no value.
 	 */
-	public static List<AsteroidVelocityDTO> extractRelativeVelocityJson(NeoWsResponse response) {
-		return response.getNear_earth_objects().values().stream().flatMap(List::stream)
-				.flatMap(asteroid -> asteroid.getClose_approach_data().stream()
-						.map(data -> new AsteroidVelocityDTO(asteroid.getName(),
-								data.getRelative_velocity().getKilometers_per_second())))
-				.filter(dto -> Objects.nonNull(dto.getVelocity()))
-				.sorted(Comparator.comparing(AsteroidVelocityDTO::getVelocity)).toList();
+	public static HistogramDTO extractHistogramJson(List<CloseApproachColumns> days, ApproachMetric metric,
+			String metricName, int bins, boolean logScale) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (CloseApproachColumns day : days) {
+			int[] order = day.order(metric);
+			int first = logScale ? firstPositive(day, metric, order) : 0;
+			if (first < order.length) {
+				min = Math.min(min, day.value(metric, order[first]));
+				max = Math.max(max, day.value(metric, order[order.length - 1]));
+			}
+		}
+		return histogramOf(metricName, bins, logScale, min, max, values -> {
+			for (CloseApproachColumns day : days) {
+				int[] order = day.order(metric);
+				for (int i = logScale ? firstPositive(day, metric, order) : 0; i < order.length; i++) {
+					values.accept(day.value(metric, order[i]));
+				}
+			}
+		});
 	}
 
 	/**
-	 * Extracts and formats the miss distances of asteroids from the provided
-	 * {@link NeoWsResponse}.
-	 *
+	 * Bins the values of a metric over the archived close approaches of a range.
 	 * <p>
-	 * This method performs the following operations:
+	 * The records are read from the memory-mapped segments of the archive in two
+	 * scans, one for the bounds of the bins and one to fill them, so the heap
+	 * used does not depend on the length of the range.
 	 * </p>
 	 *
-	 * <ul>
-	 * <li>Flattens the list of near-earth objects from the response into a single
-	 * list of asteroids.</li>
-	 * <li>For each asteroid, iterates through its close approach data to extract
-	 * the miss distance in kilometers.</li>
-	 * <li>Creates pairs of asteroid names with their respective miss
-	 * distances.</li>
-	 * <li>Filters out any pairs where the miss distance is null.</li>
-	 * <li>Sorts the pairs based on the miss distance.</li>
-	 * <li>Formats each miss distance along with its asteroid name.</li>
-	 * <li>Returns a list of formatted strings representing each asteroid's name
-	 * followed by its miss distance in kilometers.</li>
-	 * </ul>
-	 *
-	 * @param response
-	 *            The {@link NeoWsResponse} containing near-earth objects data.
-	 * @return A list of formatted strings representing the miss distances of
-	 *         asteroids in kilometers, each prefixed with the asteroid's name.
+	 * @param archive
+	 *            The archive holding every day of the range.
+	 * @param range
+	 *            The days to bin.
+	 * @param metric
+	 *            The metric to bin.
+	 * @param metricName
+	 *            The name of the metric reported in the result.
+	 * @param bins
+	 *            The number of bins, at least 1.
+	 * @param logScale
+	 *            Whether the bins are spaced logarithmically.
+	 * @return The histogram of the metric. It has no bin if there is no value.
 	 */
-	public static List<String> extractMissDistances(NeoWsResponse response) {
-		List<Pair<String, Double>> distances = response.getNear_earth_objects().values().stream().flatMap(List::stream)
-				.flatMap(asteroid -> asteroid.getClose_approach_data().stream()
-						.map(data -> new Pair<>(asteroid.getName(), data.getMiss_distance().getKilometers())))
-				.filter(pair -> Objects.nonNull(pair.second())).sorted(Comparator.comparing(Pair::second)).toList();
-		// Format each Miss distance with its asteroid name
-		return distances.stream().map(pair -> String.format("%s: %.3f km", pair.first(), pair.second())).toList();
+	public static HistogramDTO extractHistogramJson(ApproachArchive archive, DateRange range,
+			ApproachMetric metric, String metricName, int bins, boolean logScale) {
+		double[] bounds = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		archive.scan(range, metric, value -> {
+			if (!logScale || value > 0) {
+				bounds[0] = Math.min(bounds[0], value);
+				bounds[1] = Math.max(bounds[1], value);
+			}
+		});
+		return histogramOf(metricName, bins, logScale, bounds[0], bounds[1],
+				values -> archive.scan(range, metric, value -> {
+					if (!logScale || value > 0) {
+						values.accept(value);
+					}
+				}));
 	}
 
 	/**
-	 * Extracts the miss distances of asteroids from the provided
-	 * {@link NeoWsResponse}.
+	 * Bins the values between the given bounds, and computes their summary
+	 * statistics in the same pass.
 	 *
-	 * <p>
-	 * The method processes the near-earth objects contained in the NeoWsResponse
-	 * and, for each object, fetches its close approach data to obtain the miss
-	 * distance in kilometers. The resulting information is then transformed into a
-	 * list of {@link AsteroidMissDistanceDTO} objects.
-	 * </p>
+	 * @param values
+	 *            Passes every value to bin to the given consumer.
+	 */
+	private static HistogramDTO histogramOf(String metricName, int bins, boolean logScale, double min, double max,
+			Consumer<DoubleConsumer> values) {
+		String scale = logScale ? "log" : "linear";
+		if (min > max) {
+			return new HistogramDTO(metricName, scale, 0, null, null, null, null, List.of(), new long[0]);
+		}
+
+		double low = logScale ? Math.log(min) : min;
+		double width = ((logScale ? Math.log(max) : max) - low) / bins;
+		long[] counts = new long[bins];
+		// Count, mean and sum of squared deviations
+		double[] moments = new double[3];
+		values.accept(value -> {
+			double position = logScale ? Math.log(value) : value;
+			int bin = width > 0 ? (int) ((position - low) / width) : 0;
+			counts[Math.min(bin, bins - 1)]++;
+			// Welford's update keeps the variance accurate in a single pass
+			moments[0]++;
+			double delta = value - moments[1];
+			moments[1] += delta / moments[0];
+			moments[2] += delta * (value - moments[1]);
+		});
+
+		List<Double> binEdges = new ArrayList<>(bins + 1);
+		for (int i = 0; i < bins; i++) {
+			binEdges.add(logScale ? Math.exp(low + i * width) : low + i * width);
+		}
+		binEdges.set(0, min);
+		binEdges.add(max);
+		return new HistogramDTO(metricName, scale, (long) moments[0], min, max, moments[1],
+				Math.sqrt(moments[2] / moments[0]), binEdges, counts);
+	}
+
+	/**
+	 * Lists the close approaches of one asteroid, one entry per close approach
+	 * of each report.
 	 *
-	 * <ul>
-	 * <li>It first flattens the list of near-earth objects.</li>
-	 * <li>For each asteroid, the method fetches its close approach data.</li>
-	 * <li>It then creates a new DTO for each asteroid containing the asteroid's
-	 * name and its miss distance in kilometers.</li>
-	 * <li>The method filters out any DTOs where the miss distance is null.</li>
-	 * <li>The final list is sorted by the miss distance in ascending order.</li>
-	 * </ul>
+	 * @param reports
+	 *            The asteroid as reported by the feed of each day, keyed by date.
+	 * @return The approaches in the order of the reports. Missing figures are
+	 *         {@code null}.
+	 */
+	public static List<AsteroidApproachDTO> extractApproachesJson(List<Pair<LocalDate, NeoObject>> reports) {
+		List<AsteroidApproachDTO> result = new ArrayList<>();
+		for (Pair<LocalDate, NeoObject> report : reports) {
+			NeoObject object = report.second();
+			if (object.getClose_approach_data() == null) {
+				continue;
+			}
+			for (CloseApproachData data : object.getClose_approach_data()) {
+				result.add(new AsteroidApproachDTO(object.getId(), object.getName(), report.first().toString(),
+						data.getClose_approach_date_full(), data.getOrbiting_body(),
+						data.getRelative_velocity() == null
+								? null
+								: data.getRelative_velocity().getKilometers_per_second(),
+						data.getMiss_distance() == null ? null : data.getMiss_distance().getKilometers()));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Estimates quantiles of a metric from its sketch.
 	 *
-	 * @param response
-	 *            The response containing near-earth objects data.
-	 * @return A sorted list of {@link AsteroidMissDistanceDTO} objects representing
-	 *         the miss distances of asteroids. The list is sorted in ascending
-	 *         order based on the miss distance.
+	 * @param sketch
+	 *            The {@link QuantileSketch} of the metric over the range.
+	 * @param metricName
+	 *            The name of the metric reported in the result.
+	 * @param quantiles
+	 *            The quantiles to estimate, each from 0 to 1.
+	 * @return The estimates keyed by quantile, in the requested order. The
+	 *         estimates are {@code null} if there is no value.
+	 */
+	public static QuantilesDTO extractQuantilesJson(QuantileSketch sketch, String metricName,
+			List<Double> quantiles) {
+		boolean empty = sketch.count() == 0;
+		Map<String, Double> estimates = new LinkedHashMap<>();
+		for (double quantile : quantiles) {
+			estimates.put(String.valueOf(quantile), empty ? null : sketch.quantile(quantile));
+		}
+		return new QuantilesDTO(metricName, sketch.count(), empty ? null : sketch.min(),
+				empty ? null : sketch.max(), sketch.relativeAccuracy(), estimates);
+	}
+
+	/**
+	 * @return the position in the ascending order of the first positive value.
 	 */
-	public static List<AsteroidMissDistanceDTO> extractMissDistancesJson(NeoWsResponse response) {
-		return response.getNear_earth_objects().values().stream().flatMap(List::stream)
-				.flatMap(asteroid -> asteroid.getClose_approach_data().stream()
-						.map(data -> new AsteroidMissDistanceDTO(asteroid.getName(),
-								data.getMiss_distance().getKilometers())))
-				.filter(dto -> Objects.nonNull(dto.getDistance()))
-				.sorted(Comparator.comparing(AsteroidMissDistanceDTO::getDistance)).toList();
+	private static int firstPositive(CloseApproachColumns day, ApproachMetric metric, int[] order) {
+		int first = 0;
+		while (first < order.length && day.value(metric, order[first]) <= 0) {
+			first++;
+		}
+		return first;
 	}
 
 }
@@ -0,0 +1,186 @@
+package com.darklab.asteroids;
+
+import static com.darklab.asteroids.NeoWsServiceTest.neoObject;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.darklab.asteroids.dto.HistogramDTO;
+import com.darklab.asteroids.dto.NeoObject;
+import com.darklab.asteroids.service.ApproachArchive;
+import com.darklab.asteroids.service.ApproachMetric;
+import com.darklab.asteroids.service.DateRange;
+import com.darklab.asteroids.service.DaySummary;
+import com.darklab.asteroids.service.NeoWsDay;
+import com.darklab.asteroids.service.QuantileSketch;
+import com.darklab.asteroids.service.Utils;
+
+public class ApproachArchiveTest {
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-09-01T12:00:00Z"), ZoneOffset.UTC);
+
+	@TempDir
+	private Path dir;
+
+	@Test
+	void testAppendedDaysAreReadBackAfterReopening() {
+		NeoObject eros = neoObject("433 Eros (A898 PA)", 5.5, 2.6e7);
+		eros.setId("2000433");
+		eros.setIs_potentially_hazardous_asteroid(true);
+		ApproachArchive archive = new ApproachArchive(dir, CLOCK);
+		archive.append(List.of(NeoWsDay.of(LocalDate.of(2023, 8, 31), List.of(neoObject("(2023 CD)", 2, 20))),
+				NeoWsDay.of(LocalDate.of(2023, 8, 30), List.of(eros, neoObject("(2023 AB)", 1, 10))),
+				NeoWsDay.of(LocalDate.of(2023, 8, 30), List.of(neoObject("(2023 IJ)", 5, 50))),
+				NeoWsDay.of(LocalDate.of(2023, 9, 1), List.of(neoObject("(2023 EF)", 3, 30)))));
+		archive.append(List.of(NeoWsDay.of(LocalDate.of(2023, 8, 31), List.of(neoObject("(2023 GH)", 4, 40)))));
+
+		ApproachArchive reopened = new ApproachArchive(dir, CLOCK);
+		ApproachArchive.Cursor cursor = reopened.cursor(new DateRange(LocalDate.of(2023, 8, 1),
+				LocalDate.of(2023, 9, 30)));
+		List<String> records = new ArrayList<>();
+		while (cursor.next()) {
+			records.add(cursor.date() + " " + cursor.name() + " " + cursor.neoId() + " " + cursor.velocity() + " "
+					+ cursor.missDistance() + " " + cursor.maxDiameter() + " " + cursor.hazardous());
+		}
+
+		assertEquals(List.of("2023-08-30 433 Eros (A898 PA) 2000433 5.5 2.6E7 0.11 true",
+				"2023-08-30 (2023 AB) -1 1.0 10.0 0.02 false", "2023-08-31 (2023 CD) -1 2.0 20.0 0.04 false"),
+				records);
+		assertTrue(reopened.covers(new DateRange(LocalDate.of(2023, 8, 30), LocalDate.of(2023, 8, 31))));
+		assertFalse(reopened.contains(LocalDate.of(2023, 9, 1)));
+		assertEquals(3, reopened.getRecordCount());
+	}
+
+	@Test
+	void testStrayIndexNamesAreIgnoredOnOpen() throws IOException {
+		new ApproachArchive(dir, CLOCK)
+				.append(List.of(NeoWsDay.of(LocalDate.of(2023, 8, 10), List.of(neoObject("(2023 AB)", 1, 10)))));
+		Files.write(dir.resolve("backup.idx"), new byte[ApproachArchive.INDEX_BYTES]);
+		Files.write(dir.resolve("2023-13.idx"), new byte[ApproachArchive.INDEX_BYTES]);
+
+		ApproachArchive reopened = new ApproachArchive(dir, CLOCK);
+
+		assertEquals(1, reopened.getSegmentCount());
+		assertEquals(1, reopened.getRecordCount());
+	}
+
+	@Test
+	void testMonthWithTruncatedIndexIsSkippedAndArchivedAgain() throws IOException {
+		new ApproachArchive(dir, CLOCK).append(List.of(
+				NeoWsDay.of(LocalDate.of(2023, 7, 10), List.of(neoObject("(2023 AB)", 1, 10))),
+				NeoWsDay.of(LocalDate.of(2023, 8, 10), List.of(neoObject("(2023 CD)", 2, 20)))));
+		try (FileChannel index = FileChannel.open(dir.resolve("2023-08.idx"), StandardOpenOption.WRITE)) {
+			index.truncate(ApproachArchive.INDEX_BYTES / 2);
+		}
+
+		ApproachArchive reopened = new ApproachArchive(dir, CLOCK);
+
+		assertEquals(1, reopened.getSegmentCount());
+		assertTrue(reopened.contains(LocalDate.of(2023, 7, 10)));
+		assertFalse(reopened.contains(LocalDate.of(2023, 8, 10)));
+		reopened.append(List.of(NeoWsDay.of(LocalDate.of(2023, 8, 10), List.of(neoObject("(2023 CD)", 2, 20)))));
+		assertEquals(List.of(20.0),
+				missDistances(new ApproachArchive(dir, CLOCK), LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 31)));
+	}
+
+	@Test
+	void testUncommittedBytesAreTruncatedOnOpen() throws IOException {
+		new ApproachArchive(dir, CLOCK)
+				.append(List.of(NeoWsDay.of(LocalDate.of(2023, 8, 10), List.of(neoObject("(2023 AB)", 1, 10)))));
+		Files.write(dir.resolve("2023-08.seg"), new byte[ApproachArchive.RECORD_BYTES / 2],
+				StandardOpenOption.APPEND);
+
+		ApproachArchive reopened = new ApproachArchive(dir, CLOCK);
+
+		assertEquals(ApproachArchive.RECORD_BYTES, Files.size(dir.resolve("2023-08.seg")));
+		assertEquals(1, reopened.getRecordCount());
+		reopened.append(List.of(NeoWsDay.of(LocalDate.of(2023, 8, 11), List.of(neoObject("(2023 AB)", 2, 20)))));
+		assertEquals(List.of(10.0, 20.0), missDistances(reopened, LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 31)));
+	}
+
+	@Test
+	void testArchiveHistogramMatchesInMemoryHistogram() {
+		List<NeoWsDay> days = new ArrayList<>();
+		for (LocalDate day = LocalDate.of(2023, 6, 25); day.isBefore(LocalDate.of(2023, 8, 5)); day = day.plusDays(1)) {
+			List<NeoObject> objects = new ArrayList<>();
+			for (int i = 1; i <= 5; i++) {
+				objects.add(neoObject("(" + day + " " + i + ")", day.getDayOfMonth() * i, day.getDayOfYear() * i));
+			}
+			days.add(NeoWsDay.of(day, objects));
+		}
+		ApproachArchive archive = new ApproachArchive(dir, CLOCK);
+		archive.append(days);
+		DateRange range = new DateRange(LocalDate.of(2023, 6, 28), LocalDate.of(2023, 8, 2));
+
+		HistogramDTO scanned = Utils.extractHistogramJson(archive, range, ApproachMetric.DIAMETER, "diameter", 12,
+				true);
+		HistogramDTO loaded = Utils.extractHistogramJson(
+				days.stream().filter(day -> range.contains(day.date())).map(NeoWsDay::columns).toList(),
+				ApproachMetric.DIAMETER, "diameter", 12, true);
+
+		assertEquals(180, scanned.getCount());
+		assertArrayEquals(loaded.getCounts(), scanned.getCounts());
+		assertEquals(loaded.getBinEdges(), scanned.getBinEdges());
+		assertEquals(loaded.getMean(), scanned.getMean(), 1e-12);
+		assertEquals(loaded.getStandardDeviation(), scanned.getStandardDeviation(), 1e-12);
+	}
+
+	@Test
+	void testArchiveSummaryAndQuantilesMatchLoadedDays() {
+		List<NeoWsDay> days = new ArrayList<>();
+		for (LocalDate day = LocalDate.of(2023, 7, 25); day.isBefore(LocalDate.of(2023, 8, 5)); day = day.plusDays(1)) {
+			NeoObject hazardous = neoObject("(" + day + " H)", day.getDayOfMonth() + 0.5, day.getDayOfYear());
+			hazardous.setIs_potentially_hazardous_asteroid(true);
+			NeoObject twice = neoObject("(" + day + " T)", 2, 20);
+			twice.setClose_approach_data(List.of(twice.getClose_approach_data().get(0),
+					neoObject("(" + day + " T)", 3, 30).getClose_approach_data().get(0)));
+			NeoObject unknown = neoObject("(" + day + " U)", 4, 40);
+			unknown.getEstimated_diameter().setKilometers(null);
+			days.add(NeoWsDay.of(day, List.of(hazardous, twice, unknown)));
+		}
+		ApproachArchive archive = new ApproachArchive(dir, CLOCK);
+		archive.append(days);
+		DateRange range = new DateRange(LocalDate.of(2023, 7, 28), LocalDate.of(2023, 8, 2));
+		List<NeoWsDay> loadedDays = days.stream().filter(day -> range.contains(day.date())).toList();
+
+		DaySummary scanned = DaySummary.of(archive, range);
+		DaySummary loaded = DaySummary.merge(loadedDays.stream().map(NeoWsDay::summary).toList());
+		QuantileSketch scannedSketch = QuantileSketch.of(archive, range, ApproachMetric.RELATIVE_VELOCITY);
+		QuantileSketch loadedSketch = QuantileSketch
+				.merge(loadedDays.stream().map(day -> day.sketch(ApproachMetric.RELATIVE_VELOCITY)).toList());
+
+		assertEquals(18, scanned.objectCount());
+		assertEquals(loaded.objectCount(), scanned.objectCount());
+		assertEquals(loaded.hazardousCount(), scanned.hazardousCount());
+		assertEquals(loaded.approachCount(), scanned.approachCount());
+		assertEquals(loaded.maxDiameter(), scanned.maxDiameter());
+		assertEquals(loaded.minDiameter(), scanned.minDiameter());
+		assertEquals(loaded.maxDiameterNames(), scanned.maxDiameterNames());
+		assertEquals(loaded.minDiameterNames(), scanned.minDiameterNames());
+		assertEquals(loaded.meanDiameter().getAsDouble(), scanned.meanDiameter().getAsDouble(), 1e-12);
+		assertEquals(loaded.meanVelocity().getAsDouble(), scanned.meanVelocity().getAsDouble(), 1e-12);
+		assertEquals(loaded.meanMissDistance().getAsDouble(), scanned.meanMissDistance().getAsDouble(), 1e-12);
+		assertEquals(loadedSketch.count(), scannedSketch.count());
+		for (double quantile : new double[]{0, 0.25, 0.5, 0.9, 1}) {
+			assertEquals(loadedSketch.quantile(quantile), scannedSketch.quantile(quantile));
+		}
+	}
+
+	private static List<Double> missDistances(ApproachArchive archive, LocalDate start, LocalDate end) {
+		List<Double> values = new ArrayList<>();
+		archive.scan(new DateRange(start, end), ApproachMetric.MISS_DISTANCE, values::add);
+		return values;
+	}
+}
@@ -0,0 +1,86 @@
+package com.darklab.asteroids;
+
+import static com.darklab.asteroids.NeoWsServiceTest.neoObject;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.darklab.asteroids.dto.NeoObject;
+import com.darklab.asteroids.service.ApproachColumnarWriter;
+import com.darklab.asteroids.service.ApproachMetric;
+import com.darklab.asteroids.service.CloseApproachColumns;
+import com.darklab.asteroids.service.NeoWsDay;
+import com.darklab.asteroids.service.ResultWindow;
+import com.darklab.asteroids.service.SortedApproaches;
+import com.darklab.asteroids.service.Utils;
+
+public class ApproachColumnarWriterTest {
+
+	@Test
+	void testColumnsMatchJsonExtractionAcrossBufferBoundaries() throws IOException {
+		Random random = new Random(7);
+		List<CloseApproachColumns> days = new ArrayList<>();
+		for (int day = 0; day < 30; day++) {
+			List<NeoObject> objects = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				// Names repeat across days, so the dictionary is shared
+				objects.add(neoObject("(2023 " + i + ")", 30 * random.nextDouble(), 1e7 * random.nextDouble()));
+			}
+			days.add(NeoWsDay.of(LocalDate.of(2023, 8, 1).plusDays(day), objects).columns());
+		}
+		ResultWindow window = new ResultWindow(10, 2500, true);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		int written = ApproachColumnarWriter.write(
+				new SortedApproaches(days, ApproachMetric.RELATIVE_VELOCITY, "velocity", window), out);
+
+		assertEquals(2500, written);
+		assertEquals(Utils.extractRelativeVelocityJson(days, window).stream()
+				.map(dto -> dto.getName() + ": " + dto.getVelocity()).toList(), decode(out.toByteArray()));
+	}
+
+	/**
+	 * Decodes the columnar layout into "name: value" strings, in order.
+	 */
+	static List<String> decode(byte[] body) {
+		ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] magic = new byte[4];
+		buffer.get(magic);
+		assertEquals("NEOC", new String(magic, StandardCharsets.US_ASCII));
+		assertEquals(ApproachColumnarWriter.VERSION, buffer.get());
+		buffer.get();
+		buffer.getShort();
+		int size = buffer.getInt();
+		buffer.getInt();
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = buffer.getDouble();
+		}
+		int[] nameIds = new int[size];
+		for (int i = 0; i < size; i++) {
+			nameIds[i] = buffer.getInt();
+		}
+		List<String> names = new ArrayList<>();
+		for (int i = buffer.getInt(); i > 0; i--) {
+			byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+			buffer.get(name);
+			names.add(new String(name, StandardCharsets.UTF_8));
+		}
+		assertEquals(0, buffer.remaining());
+		List<String> decoded = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			decoded.add(names.get(nameIds[i]) + ": " + values[i]);
+		}
+		return decoded;
+	}
+}
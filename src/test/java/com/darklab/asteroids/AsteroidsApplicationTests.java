@@ -1,10 +1,22 @@
 package com.darklab.asteroids;
 
+import java.nio.file.Path;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
-@SpringBootTest
+@SpringBootTest(properties = "neows.prefetch.enabled=false")
 class AsteroidsApplicationTests {
+	@TempDir
+	static Path dataDir;
+
+	@DynamicPropertySource
+	static void dataDir(DynamicPropertyRegistry registry) {
+		registry.add("neows.data-dir", dataDir::toString);
+	}
 
 	@Test
 	void contextLoads() {
@@ -0,0 +1,96 @@
+package com.darklab.asteroids;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.darklab.asteroids.entity.BackfillCheckpointEntity;
+import com.darklab.asteroids.repository.BackfillCheckpointRepository;
+import com.darklab.asteroids.service.DateRange;
+import com.darklab.asteroids.service.NeoWsBackfill;
+import com.darklab.asteroids.service.NeoWsQuotaExceededException;
+import com.darklab.asteroids.service.NeoWsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class NeoWsBackfillTest {
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-01-21T12:00:00Z"), ZoneOffset.UTC);
+
+	private NeoWsService neoWsService;
+	private BackfillCheckpointRepository checkpoints;
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		neoWsService = mock(NeoWsService.class);
+		when(neoWsService.backfill(any())).thenAnswer(invocation -> CompletableFuture
+				.completedFuture((int) invocation.<DateRange>getArgument(0).lengthInDays()));
+		checkpoints = mock(BackfillCheckpointRepository.class);
+		when(checkpoints.findById(NeoWsBackfill.CHECKPOINT)).thenReturn(Optional.empty());
+		when(checkpoints.save(any())).then(returnsFirstArg());
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	void testWalksSpanUpToYesterdayInSteps() {
+		NeoWsBackfill backfill = new NeoWsBackfill(neoWsService, checkpoints, meterRegistry, "2023-01-01", "", 8,
+				CLOCK);
+
+		for (int i = 0; i < 4; i++) {
+			backfill.step().join();
+		}
+
+		InOrder inOrder = inOrder(neoWsService);
+		inOrder.verify(neoWsService).backfill(new DateRange(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 8)));
+		inOrder.verify(neoWsService).backfill(new DateRange(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 16)));
+		inOrder.verify(neoWsService).backfill(new DateRange(LocalDate.of(2023, 1, 17), LocalDate.of(2023, 1, 20)));
+		verifyNoMoreInteractions(neoWsService);
+		verify(checkpoints, times(3)).save(any());
+		assertEquals(20, meterRegistry.get("neows.backfill.days").tag("result", "fetched").counter().count());
+		assertEquals(0, meterRegistry.get("neows.backfill.remaining").gauge().value());
+	}
+
+	@Test
+	void testResumesFromCheckpoint() {
+		BackfillCheckpointEntity checkpoint = new BackfillCheckpointEntity();
+		checkpoint.setName(NeoWsBackfill.CHECKPOINT);
+		checkpoint.setStartDate(LocalDate.of(2023, 1, 1));
+		checkpoint.setNextDate(LocalDate.of(2023, 1, 17));
+		checkpoint.setFetchedDays(16);
+		when(checkpoints.findById(NeoWsBackfill.CHECKPOINT)).thenReturn(Optional.of(checkpoint));
+		NeoWsBackfill backfill = new NeoWsBackfill(neoWsService, checkpoints, meterRegistry, "2023-01-01",
+				"2023-01-20", 8, CLOCK);
+
+		backfill.step().join();
+
+		verify(neoWsService).backfill(new DateRange(LocalDate.of(2023, 1, 17), LocalDate.of(2023, 1, 20)));
+		assertEquals(LocalDate.of(2023, 1, 21), checkpoint.getNextDate());
+		assertEquals(20, checkpoint.getFetchedDays());
+	}
+
+	@Test
+	void testFailedStepIsRetriedWithoutMovingCheckpoint() {
+		doReturn(CompletableFuture.failedFuture(new NeoWsQuotaExceededException("Quota exhausted")))
+				.doReturn(CompletableFuture.completedFuture(5)).when(neoWsService).backfill(any());
+		NeoWsBackfill backfill = new NeoWsBackfill(neoWsService, checkpoints, meterRegistry, "2023-01-01",
+				"2023-01-05", 8, CLOCK);
+
+		backfill.step().join();
+		backfill.step().join();
+
+		verify(neoWsService, times(2)).backfill(new DateRange(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 5)));
+		verify(checkpoints, times(1)).save(any());
+	}
+}
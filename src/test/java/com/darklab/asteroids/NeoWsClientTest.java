@@ -0,0 +1,171 @@
+package com.darklab.asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.darklab.asteroids.dto.NeoWsResponse;
+import com.darklab.asteroids.service.NeoWsClient;
+import com.darklab.asteroids.service.NeoWsQuotaExceededException;
+import com.darklab.asteroids.service.NeoWsRateLimiter;
+import com.darklab.asteroids.service.NeoWsRateLimiter.Priority;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class NeoWsClientTest {
+	private static final String FEED = """
+			{"near_earth_objects": {"2023-08-10": [{"id": "1", "name": "(2023 AB)"}]}}
+			""";
+
+	@TempDir
+	private Path recordDir;
+	private HttpServer server;
+	private ExecutorService executor;
+	private NeoWsRateLimiter rateLimiter;
+	private SimpleMeterRegistry meterRegistry;
+	private NeoWsClient neoWsClient;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.start();
+		executor = Executors.newFixedThreadPool(2);
+		rateLimiter = new NeoWsRateLimiter(1000, 0.2, 1000, 10);
+		meterRegistry = new SimpleMeterRegistry();
+		neoWsClient = new NeoWsClient(HttpClient.newHttpClient(), executor, rateLimiter, meterRegistry,
+				"http://localhost:" + server.getAddress().getPort() + "/feed", 5000, true, recordDir.toString());
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	@Test
+	void testGzipFeedIsDecompressedAndRecorded() throws IOException {
+		server.createContext("/feed", exchange -> {
+			assertEquals("gzip", exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(FEED.getBytes(StandardCharsets.UTF_8));
+			}
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+			exchange.getResponseHeaders().add("X-RateLimit-Remaining", "42");
+			exchange.sendResponseHeaders(200, compressed.size());
+			try (OutputStream body = exchange.getResponseBody()) {
+				compressed.writeTo(body);
+			}
+		});
+
+		NeoWsResponse response = neoWsClient
+				.fetchFeedAsync(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 10), Priority.INTERACTIVE).join();
+
+		assertEquals("(2023 AB)", response.getNear_earth_objects().get("2023-08-10").get(0).getName());
+		assertTrue(rateLimiter.getAvailableTokens() < 43);
+		assertEquals(1, meterRegistry.get("neows.upstream.requests").tag("status", "200").timer().count());
+		assertEquals(1, meterRegistry.get("neows.upstream.objects").summary().totalAmount());
+		assertTrue(meterRegistry.get("neows.upstream.payload").summary().totalAmount() > 0);
+		assertEquals(FEED, Files.readString(recordDir.resolve("feed-2023-08-10_2023-08-10.json")));
+	}
+
+	@Test
+	void testMalformedQuotaHeaderIsIgnored() {
+		server.createContext("/feed", exchange -> {
+			byte[] feed = FEED.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("X-RateLimit-Remaining", "unknown");
+			exchange.sendResponseHeaders(200, feed.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(feed);
+			}
+		});
+
+		NeoWsResponse response = neoWsClient
+				.fetchFeedAsync(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 10), Priority.INTERACTIVE).join();
+
+		assertEquals("(2023 AB)", response.getNear_earth_objects().get("2023-08-10").get(0).getName());
+		assertTrue(rateLimiter.getAvailableTokens() > 900);
+	}
+
+	@Test
+	void testStalledBodyFailsAfterReadTimeout() {
+		neoWsClient = new NeoWsClient(HttpClient.newHttpClient(), executor, rateLimiter, meterRegistry,
+				"http://localhost:" + server.getAddress().getPort() + "/feed", 300, false, "");
+		CountDownLatch released = new CountDownLatch(1);
+		server.createContext("/feed", exchange -> {
+			exchange.sendResponseHeaders(200, 1000);
+			OutputStream body = exchange.getResponseBody();
+			body.write('{');
+			body.flush();
+			try {
+				released.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.close();
+		});
+
+		try {
+			CompletionException ex = assertThrows(CompletionException.class, () -> neoWsClient
+					.fetchFeedAsync(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 10), Priority.INTERACTIVE)
+					.join());
+
+			assertInstanceOf(ResourceAccessException.class, ex.getCause());
+			assertEquals(1, meterRegistry.get("neows.upstream.requests").tag("status", "TIMEOUT").timer().count());
+		} finally {
+			released.countDown();
+		}
+	}
+
+	@Test
+	void testErrorStatusFailsWithClientException() {
+		server.createContext("/feed", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+
+		CompletionException ex = assertThrows(CompletionException.class, () -> neoWsClient
+				.fetchFeedAsync(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 10), Priority.INTERACTIVE).join());
+
+		HttpClientErrorException cause = assertInstanceOf(HttpClientErrorException.class, ex.getCause());
+		assertEquals(404, cause.getStatusCode().value());
+	}
+
+	@Test
+	void testTooManyRequestsDrainsQuota() {
+		server.createContext("/feed", exchange -> {
+			exchange.sendResponseHeaders(429, -1);
+			exchange.close();
+		});
+
+		CompletionException ex = assertThrows(CompletionException.class, () -> neoWsClient
+				.fetchFeedAsync(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 10), Priority.INTERACTIVE).join());
+
+		assertInstanceOf(NeoWsQuotaExceededException.class, ex.getCause());
+		assertTrue(rateLimiter.getAvailableTokens() < 1);
+		assertEquals(1, meterRegistry.get("neows.upstream.errors")
+				.tag("exception", "NeoWsQuotaExceededException").counter().count());
+	}
+}
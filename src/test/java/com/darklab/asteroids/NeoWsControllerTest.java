@@ -1,36 +1,81 @@
 package com.darklab.asteroids;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static com.darklab.asteroids.NeoWsServiceTest.neoObject;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.darklab.asteroids.dto.AsteroidApproachDTO;
+import com.darklab.asteroids.dto.AsteroidMissDistanceDTO;
+import com.darklab.asteroids.dto.AsteroidVelocityDTO;
+import com.darklab.asteroids.dto.HistogramDTO;
+import com.darklab.asteroids.dto.QuantilesDTO;
+import com.darklab.asteroids.service.ApproachMetric;
+import com.darklab.asteroids.service.ApproachColumnarWriter;
+import com.darklab.asteroids.service.CloseApproachColumns;
+import com.darklab.asteroids.service.NeoWsQuotaExceededException;
 import com.darklab.asteroids.service.NeoWsService;
+import com.darklab.asteroids.service.ResultWindow;
+import com.darklab.asteroids.service.SortedApproaches;
 
-@SpringBootTest
+@SpringBootTest(properties = "neows.prefetch.enabled=false")
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
 public class NeoWsControllerTest {
+	@TempDir
+	static Path dataDir;
+
 	@Autowired
 	private MockMvc mockMvc;
 
 	@MockBean
 	private NeoWsService neoWsService;
 
+	@Autowired
+	private Clock clock;
+
+	@DynamicPropertySource
+	static void dataDir(DynamicPropertyRegistry registry) {
+		registry.add("neows.data-dir", dataDir::toString);
+	}
+
 	@Test
 	public void testListMaxMinDiameter() throws Exception {
 		List<String> mockResult = Arrays.asList("Diameter1", "Diameter2");
@@ -44,7 +89,7 @@ public class NeoWsControllerTest {
 	@Test
 	void testListRelativeVelocityPositiveScenario() throws Exception {
 		List<String> mockData = Arrays.asList("Velocity1", "Velocity2");
-		when(neoWsService.fetchDataAndExtractInfo(anyString(), anyString(), anyString())).thenReturn(mockData);
+		when(neoWsService.fetchDataAndExtractInfo(anyString(), anyString(), anyString(), any())).thenReturn(mockData);
 		mockMvc.perform(get("/listRelativeVelocity").param("start_date", "2021-01-01").param("end_date", "2021-01-02"))
 				.andExpect(status().isOk()).andExpect(model().attribute("result", hasSize(2)))
 				.andExpect(model().attribute("result", hasItem("Velocity1"))).andExpect(view().name("index"));
@@ -52,7 +97,7 @@ public class NeoWsControllerTest {
 
 	@Test
 	void testListRelativeVelocityWithNoData() throws Exception {
-		when(neoWsService.fetchDataAndExtractInfo(anyString(), anyString(), anyString()))
+		when(neoWsService.fetchDataAndExtractInfo(anyString(), anyString(), anyString(), any()))
 				.thenReturn(Collections.emptyList());
 		mockMvc.perform(get("/listRelativeVelocity")
 						.param("start_date", "2021-01-01")
@@ -64,7 +109,7 @@ public class NeoWsControllerTest {
 
 	@Test
 	void testListRelativeVelocityServiceException() throws Exception {
-		when(neoWsService.fetchDataAndExtractInfo(anyString(), anyString(), anyString()))
+		when(neoWsService.fetchDataAndExtractInfo(anyString(), anyString(), anyString(), any()))
 				.thenThrow(new RuntimeException("Internal error occurred"));
 		mockMvc.perform(get("/listRelativeVelocity")
 						.param("start_date", "2021-01-01")
@@ -77,4 +122,163 @@ public class NeoWsControllerTest {
 		mockMvc.perform(get("/listRelativeVelocity")).andExpect(status().isBadRequest());
 	}
 
+	@Test
+	void testListMissDistanceJsonClosestApproaches() throws Exception {
+		List<AsteroidMissDistanceDTO> mockResult = List.of(new AsteroidMissDistanceDTO("A", 1000.0));
+		when(neoWsService.fetchDataAndExtractInfoJsonAsync("2023-08-10", "2023-08-11", "missDistances",
+				new ResultWindow(0, 10, false))).thenReturn(CompletableFuture.completedFuture(Optional.of(mockResult)));
+		MvcResult result = mockMvc.perform(get("/listMissDistanceJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").param("limit", "10").accept("*/*")).andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].distance").value(1000.0));
+	}
+
+	@Test
+	void testListRelativeVelocityJsonInvalidOrder() throws Exception {
+		MvcResult result = mockMvc.perform(get("/listRelativeVelocityJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").param("order", "sideways")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testListAllMetricsJsonWithSubset() throws Exception {
+		Map<String, Object> mockResult = Map.of("relativeVelocity", List.of(new AsteroidVelocityDTO("A", 1.5)));
+		when(neoWsService.fetchDataAndExtractAllInfoJsonAsync("2023-08-10", "2023-08-11",
+				List.of("relativeVelocity", "missDistances")))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(mockResult)));
+		MvcResult result = mockMvc.perform(get("/listAllMetricsJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").param("metrics", "relativeVelocity,missDistances")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.relativeVelocity[0].name").value("A"));
+	}
+
+	@Test
+	void testListAllMetricsJsonQuotaExhausted() throws Exception {
+		when(neoWsService.fetchDataAndExtractAllInfoJsonAsync(anyString(), anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new NeoWsQuotaExceededException("quota")));
+		MvcResult result = mockMvc.perform(get("/listAllMetricsJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isTooManyRequests());
+	}
+
+	@Test
+	void testListRelativeVelocityJsonUpstreamFailure() throws Exception {
+		when(neoWsService.fetchDataAndExtractInfoJsonAsync(anyString(), anyString(), anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new RuntimeException("Internal error occurred")));
+		MvcResult result = mockMvc.perform(get("/listRelativeVelocityJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isInternalServerError());
+	}
+
+	@Test
+	void testHistogramJsonDefaultsToLinearBins() throws Exception {
+		HistogramDTO mockResult = new HistogramDTO("relativeVelocity", "linear", 3, 1.0, 3.0, 2.0, 0.8,
+				List.of(1.0, 2.0, 3.0), new long[]{1, 2});
+		when(neoWsService.fetchHistogramJsonAsync("2023-08-10", "2023-08-11", "relativeVelocity", 20, "linear"))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(mockResult)));
+		MvcResult result = mockMvc.perform(get("/histogramJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").param("metric", "relativeVelocity")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(jsonPath("$.counts", hasSize(2)))
+				.andExpect(jsonPath("$.binEdges[2]").value(3.0)).andExpect(jsonPath("$.mean").value(2.0));
+	}
+
+	@Test
+	void testQuantilesJsonDefaultsToMedianAndTail() throws Exception {
+		Map<String, Double> quantiles = new LinkedHashMap<>();
+		quantiles.put("0.5", 10.0);
+		quantiles.put("0.9", 20.0);
+		quantiles.put("0.99", 30.0);
+		QuantilesDTO mockResult = new QuantilesDTO("relativeVelocity", 100, 1.0, 31.0, 0.01, quantiles);
+		when(neoWsService.fetchQuantilesJsonAsync("2023-08-10", "2023-08-11", "relativeVelocity",
+				List.of(0.5, 0.9, 0.99))).thenReturn(CompletableFuture.completedFuture(Optional.of(mockResult)));
+		MvcResult result = mockMvc.perform(get("/quantilesJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").param("metric", "relativeVelocity")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.quantiles['0.99']").value(30.0)).andExpect(jsonPath("$.count").value(100));
+	}
+
+	@Test
+	void testRepeatedPastRangeIsServedFromCacheAndRevalidated() throws Exception {
+		when(neoWsService.fetchDataAndExtractInfoJsonAsync("2023-08-10", "2023-08-11", "relativeVelocity",
+				ResultWindow.ALL)).thenReturn(CompletableFuture
+						.completedFuture(Optional.of(List.of(new AsteroidVelocityDTO("A", 1.5)))));
+		MvcResult first = mockMvc.perform(get("/listRelativeVelocityJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11")).andReturn();
+		String etag = mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", containsString("immutable")))
+				.andExpect(jsonPath("$[0].name").value("A")).andReturn().getResponse().getHeader("ETag");
+
+		MvcResult second = mockMvc.perform(get("/listRelativeVelocityJson").param("end_date", "2023-08-11")
+				.param("start_date", "2023-08-10")).andReturn();
+		mockMvc.perform(asyncDispatch(second)).andExpect(status().isOk()).andExpect(header().string("ETag", etag))
+				.andExpect(jsonPath("$[0].velocity").value(1.5));
+		MvcResult revalidated = mockMvc.perform(get("/listRelativeVelocityJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").header("If-None-Match", etag)).andReturn();
+		mockMvc.perform(asyncDispatch(revalidated)).andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		verify(neoWsService, times(1)).fetchDataAndExtractInfoJsonAsync(anyString(), anyString(), anyString(),
+				any());
+	}
+
+	@Test
+	void testCurrentRangeMustBeRevalidated() throws Exception {
+		String today = LocalDate.now(clock).toString();
+		when(neoWsService.fetchDataAndExtractInfoJsonAsync(today, today, "summary", ResultWindow.ALL))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(Map.of("objectCount", 3))));
+		MvcResult result = mockMvc.perform(get("/summaryJson").param("start_date", today).param("end_date", today))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", "no-cache")).andExpect(header().exists("ETag"));
+	}
+
+	@Test
+	void testListMissDistanceJsonStreamsNdjson() throws Exception {
+		when(neoWsService.fetchSortedApproachesAsync("2023-08-10", "2023-08-11", "missDistances",
+				new ResultWindow(0, 2, false))).thenReturn(CompletableFuture.completedFuture(
+						Optional.of(sortedDistances(new ResultWindow(0, 2, false)))));
+		MvcResult result = mockMvc.perform(get("/listMissDistanceJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").param("limit", "2").accept("application/x-ndjson")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andExpect(content().string("{\"name\":\"B\",\"distance\":10.0}\n{\"name\":\"C\",\"distance\":20.0}\n"));
+	}
+
+	@Test
+	void testListMissDistanceJsonEncodesColumnar() throws Exception {
+		when(neoWsService.fetchSortedApproachesAsync("2023-08-10", "2023-08-11", "missDistances", ResultWindow.ALL))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(sortedDistances(ResultWindow.ALL))));
+		MvcResult result = mockMvc.perform(get("/listMissDistanceJson").param("start_date", "2023-08-10")
+				.param("end_date", "2023-08-11").accept(ApproachColumnarWriter.MEDIA_TYPE)).andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().contentType(ApproachColumnarWriter.MEDIA_TYPE)).andReturn().getResponse()
+				.getContentAsByteArray();
+
+		assertEquals(List.of("B: 10.0", "C: 20.0", "A: 30.0"), ApproachColumnarWriterTest.decode(body));
+	}
+
+	@Test
+	void testAsteroidApproachesAreListed() throws Exception {
+		when(neoWsService.fetchApproachesJson("3542519", "2023-01-01", "")).thenReturn(Optional.of(List.of(
+				new AsteroidApproachDTO("3542519", "(2010 PK9)", "2023-03-04", "2023-Mar-04 06:12", "Earth", 12.5,
+						4.2e6))));
+		mockMvc.perform(get("/asteroid/3542519/approaches").param("start_date", "2023-01-01"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].name").value("(2010 PK9)"))
+				.andExpect(jsonPath("$[0].date").value("2023-03-04"))
+				.andExpect(jsonPath("$[0].distance").value(4.2e6));
+	}
+
+	private static SortedApproaches sortedDistances(ResultWindow window) {
+		List<CloseApproachColumns> days = List.of(CloseApproachColumns.of(List.of(neoObject("A", 1, 30),
+				neoObject("B", 2, 10), neoObject("C", 3, 20))));
+		return new SortedApproaches(days, ApproachMetric.MISS_DISTANCE, "distance", window);
+	}
+
+	@Test
+	void testPrometheusEndpointExposesNeoWsMetrics() throws Exception {
+		mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk())
+				.andExpect(content().string(containsString("neows_quota_tokens")));
+	}
+
 }
@@ -0,0 +1,77 @@
+package com.darklab.asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import com.darklab.asteroids.dto.NeoObject;
+import com.darklab.asteroids.service.DateRange;
+import com.darklab.asteroids.service.NeoWsDay;
+import com.darklab.asteroids.service.NeoWsDayStore;
+import com.darklab.asteroids.service.Pair;
+
+@DataJpaTest
+@Import(NeoWsDayStore.class)
+public class NeoWsDayStoreTest {
+	@Autowired
+	private NeoWsDayStore dayStore;
+
+	@TestConfiguration
+	static class ClockConfig {
+		@Bean
+		Clock clock() {
+			return Clock.systemDefaultZone();
+		}
+	}
+
+	@Test
+	void testPastDaysRoundTrip() {
+		LocalDate day = LocalDate.of(2023, 8, 10);
+		dayStore.saveDays(List.of(NeoWsDay.of(day, List.of(NeoWsServiceTest.neoObject("(2023 AB)", 12.5, 1000.0),
+				NeoWsServiceTest.neoObject("(2023 CD)", 7.25, 2000.0)))));
+
+		Map<LocalDate, NeoWsDay> found = dayStore.findDays(List.of(day, day.plusDays(1)));
+
+		assertEquals(1, found.size());
+		List<NeoObject> objects = found.get(day).objects();
+		assertEquals(List.of("(2023 AB)", "(2023 CD)"), objects.stream().map(NeoObject::getName).toList());
+		assertEquals(7.25, objects.get(1).getClose_approach_data().get(0).getRelative_velocity()
+				.getKilometers_per_second());
+		assertEquals(2000.0, objects.get(1).getClose_approach_data().get(0).getMiss_distance().getKilometers());
+		assertEquals(0.145, objects.get(1).getEstimated_diameter().getKilometers().getEstimated_diameter_max());
+	}
+
+	@Test
+	void testObjectsAreFoundByNeoId() {
+		LocalDate day = LocalDate.of(2023, 8, 10);
+		dayStore.saveDays(List.of(
+				NeoWsDay.of(day.plusDays(3), List.of(NeoWsServiceTest.neoObject("(2023 AB)", 3, 300.0))),
+				NeoWsDay.of(day, List.of(NeoWsServiceTest.neoObject("(2023 CD)", 2, 200.0),
+						NeoWsServiceTest.neoObject("(2023 AB)", 1, 100.0))),
+				NeoWsDay.of(day.plusDays(30), List.of(NeoWsServiceTest.neoObject("(2023 AB)", 4, 400.0)))));
+
+		List<Pair<LocalDate, NeoObject>> found = dayStore.findObjects("(2023 AB)",
+				new DateRange(day, day.plusDays(7)));
+
+		assertEquals(List.of(day, day.plusDays(3)), found.stream().map(Pair::first).toList());
+		assertEquals(300.0, found.get(1).second().getClose_approach_data().get(0).getMiss_distance().getKilometers());
+	}
+
+	@Test
+	void testTodayIsNotStored() {
+		LocalDate today = LocalDate.now();
+		dayStore.saveDays(List.of(NeoWsDay.of(today, List.of(NeoWsServiceTest.neoObject("(2023 AB)", 1, 1)))));
+
+		assertTrue(dayStore.findDays(List.of(today)).isEmpty());
+	}
+}
@@ -0,0 +1,100 @@
+package com.darklab.asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.darklab.asteroids.dto.CloseApproachData;
+import com.darklab.asteroids.dto.NeoObject;
+import com.darklab.asteroids.dto.NeoWsResponse;
+import com.darklab.asteroids.service.NeoWsFeedParser;
+
+public class NeoWsFeedParserTest {
+	private static final String FEED = """
+			{
+			  "links": {"next": "http://example.org/next", "self": "http://example.org/self"},
+			  "element_count": 2,
+			  "near_earth_objects": {
+			    "2023-08-10": [{
+			      "links": {"self": "http://example.org/neo/2465633"},
+			      "id": "2465633",
+			      "neo_reference_id": "2465633",
+			      "name": "465633 (2009 JR5)",
+			      "absolute_magnitude_h": 20.48,
+			      "estimated_diameter": {
+			        "kilometers": {"estimated_diameter_min": 0.2016, "estimated_diameter_max": 0.4509},
+			        "meters": {"estimated_diameter_min": 201.6, "estimated_diameter_max": 450.9}
+			      },
+			      "is_potentially_hazardous_asteroid": true,
+			      "close_approach_data": [{
+			        "close_approach_date": "2023-08-10",
+			        "close_approach_date_full": "2023-Aug-10 05:54",
+			        "relative_velocity": {"kilometers_per_second": "18.1279360862", "kilometers_per_hour": "65260.57"},
+			        "miss_distance": {"astronomical": "0.30", "kilometers": "45290298.225725659", "miles": "28142086"},
+			        "orbiting_body": "Earth"
+			      }],
+			      "is_sentry_object": false
+			    }],
+			    "2023-08-11": []
+			  }
+			}
+			""";
+
+	@Test
+	void testParseKeepsFieldsReadByExtractors() throws IOException {
+		NeoWsResponse response = NeoWsFeedParser.parse(new ByteArrayInputStream(FEED.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(List.of("2023-08-10", "2023-08-11"), List.copyOf(response.getNear_earth_objects().keySet()));
+		assertTrue(response.getNear_earth_objects().get("2023-08-11").isEmpty());
+		NeoObject object = response.getNear_earth_objects().get("2023-08-10").get(0);
+		assertEquals("2465633", object.getId());
+		assertEquals("465633 (2009 JR5)", object.getName());
+		assertEquals(20.48, object.getAbsolute_magnitude_h());
+		assertTrue(object.getIs_potentially_hazardous_asteroid());
+		assertEquals(0.2016, object.getEstimated_diameter().getKilometers().getEstimated_diameter_min());
+		assertEquals(0.4509, object.getEstimated_diameter().getKilometers().getEstimated_diameter_max());
+		assertNull(object.getEstimated_diameter().getMeters());
+
+		CloseApproachData approach = object.getClose_approach_data().get(0);
+		assertEquals("2023-Aug-10 05:54", approach.getClose_approach_date_full());
+		assertEquals(18.1279360862, approach.getRelative_velocity().getKilometers_per_second());
+		assertNull(approach.getRelative_velocity().getKilometers_per_hour());
+		assertEquals(45290298.225725659, approach.getMiss_distance().getKilometers());
+		assertEquals("Earth", approach.getOrbiting_body());
+	}
+
+	@Test
+	void testMissingAndMalformedNumbersStayUnknown() throws IOException {
+		String feed = """
+				{"near_earth_objects": {"2023-08-10": [{
+					"id": "1", "name": "(odd)", "absolute_magnitude_h": null,
+					"estimated_diameter": {"kilometers": {"estimated_diameter_min": null, "estimated_diameter_max": 0.5}},
+					"close_approach_data": [{
+						"relative_velocity": {"kilometers_per_second": "abc"},
+						"miss_distance": {"kilometers": null}
+					}]
+				}]}}
+				""";
+
+		NeoWsResponse response = NeoWsFeedParser.parse(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)));
+
+		NeoObject object = response.getNear_earth_objects().get("2023-08-10").get(0);
+		assertNull(object.getEstimated_diameter().getKilometers());
+		CloseApproachData approach = object.getClose_approach_data().get(0);
+		assertNull(approach.getRelative_velocity().getKilometers_per_second());
+		assertNull(approach.getMiss_distance().getKilometers());
+	}
+
+	@Test
+	void testParseWithoutNearEarthObjects() throws IOException {
+		NeoWsResponse response = NeoWsFeedParser
+				.parse(new ByteArrayInputStream("{\"element_count\": 0}".getBytes(StandardCharsets.UTF_8)));
+
+		assertNull(response.getNear_earth_objects());
+	}
+}
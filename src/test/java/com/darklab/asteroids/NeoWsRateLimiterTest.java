@@ -0,0 +1,57 @@
+package com.darklab.asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.darklab.asteroids.service.NeoWsQuotaExceededException;
+import com.darklab.asteroids.service.NeoWsRateLimiter;
+import com.darklab.asteroids.service.NeoWsRateLimiter.Priority;
+
+public class NeoWsRateLimiterTest {
+
+	@Test
+	void testBackgroundRequestsLeaveReserveToInteractive() {
+		NeoWsRateLimiter rateLimiter = new NeoWsRateLimiter(10, 0.5, 50, 10);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(rateLimiter.acquire(Priority.BACKGROUND).isDone());
+		}
+
+		CompletableFuture<Void> background = rateLimiter.acquire(Priority.BACKGROUND);
+		CompletableFuture<Void> interactive = rateLimiter.acquire(Priority.INTERACTIVE);
+
+		assertTrue(interactive.isDone());
+		CompletionException ex = assertThrows(CompletionException.class, background::join);
+		assertInstanceOf(NeoWsQuotaExceededException.class, ex.getCause());
+		assertEquals(1, rateLimiter.getRejectedCount());
+	}
+
+	@Test
+	void testReportedQuotaQueuesRequestsUntilRefill() throws Exception {
+		NeoWsRateLimiter rateLimiter = new NeoWsRateLimiter(36_000, 0.2, 5000, 10);
+		rateLimiter.observeRemaining(0);
+
+		CompletableFuture<Void> interactive = rateLimiter.acquire(Priority.INTERACTIVE);
+
+		assertFalse(interactive.isDone());
+		assertEquals(1, rateLimiter.getQueuedCount());
+		interactive.get(2, TimeUnit.SECONDS);
+		assertEquals(0, rateLimiter.getQueuedCount());
+	}
+
+	@Test
+	void testFullQueueShedsImmediately() {
+		NeoWsRateLimiter rateLimiter = new NeoWsRateLimiter(10, 0.2, 5000, 1);
+		rateLimiter.observeRemaining(0);
+
+		CompletableFuture<Void> queued = rateLimiter.acquire(Priority.INTERACTIVE);
+		CompletableFuture<Void> shed = rateLimiter.acquire(Priority.INTERACTIVE);
+
+		assertFalse(queued.isDone());
+		assertTrue(shed.isCompletedExceptionally());
+	}
+}
@@ -0,0 +1,418 @@
+package com.darklab.asteroids;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.darklab.asteroids.dto.*;
+import com.darklab.asteroids.service.ApproachArchive;
+import com.darklab.asteroids.service.ApproachMetric;
+import com.darklab.asteroids.service.DateRange;
+import com.darklab.asteroids.service.NeoWsClient;
+import com.darklab.asteroids.service.NeoWsDay;
+import com.darklab.asteroids.service.NeoWsDayStore;
+import com.darklab.asteroids.service.NeoWsRateLimiter.Priority;
+import com.darklab.asteroids.service.NeoWsService;
+import com.darklab.asteroids.service.Pair;
+import com.darklab.asteroids.service.ResultWindow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class NeoWsServiceTest {
+	private NeoWsClient neoWsClient;
+	private NeoWsDayStore dayStore;
+	private ApproachArchive archive;
+	private NeoWsService neoWsService;
+
+	@BeforeEach
+	void setUp() {
+		neoWsClient = mock(NeoWsClient.class);
+		when(neoWsClient.fetchFeedAsync(any(), any(), any())).thenAnswer(invocation -> CompletableFuture
+				.completedFuture(feed(invocation.getArgument(0), invocation.getArgument(1))));
+		dayStore = mock(NeoWsDayStore.class);
+		when(dayStore.findDays(any())).thenReturn(Map.of());
+		archive = mock(ApproachArchive.class);
+		when(archive.append(any())).thenReturn(true);
+		neoWsService = new NeoWsService(neoWsClient, dayStore, archive, new SimpleMeterRegistry(), 90, 60, 366);
+	}
+
+	@Test
+	void testOverlappingRangeFetchesOnlyMissingDays() {
+		neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-12", "relativeVelocity");
+		neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-14", "relativeVelocity");
+
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 12), Priority.INTERACTIVE);
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 13), LocalDate.of(2023, 8, 14), Priority.INTERACTIVE);
+		verifyNoMoreInteractions(neoWsClient);
+	}
+
+	@Test
+	void testCachedRangeIsServedWithoutUpstreamCall() {
+		List<?> first = (List<?>) neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-11",
+				"missDistances").orElseThrow();
+		List<?> second = (List<?>) neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-11",
+				"missDistances").orElseThrow();
+
+		assertEquals(2, first.size());
+		assertEquals(first.size(), second.size());
+		verify(neoWsClient, times(1)).fetchFeedAsync(any(), any(), any());
+	}
+
+	@Test
+	void testStoredDaysAreServedWithoutUpstreamCall() {
+		LocalDate day = LocalDate.of(2023, 8, 10);
+		when(dayStore.findDays(List.of(day)))
+				.thenReturn(Map.of(day, NeoWsDay.of(day, List.of(neoObject("(2023 AB)", 12.5, 1000.0)))));
+
+		List<?> result = (List<?>) neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-10",
+				"relativeVelocity").orElseThrow();
+
+		assertEquals(1, result.size());
+		verifyNoInteractions(neoWsClient);
+	}
+
+	@Test
+	void testConcurrentIdenticalRequestsShareOneUpstreamCall() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> CompletableFuture.supplyAsync(() -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return feed(invocation.getArgument(0), invocation.getArgument(1));
+		})).when(neoWsClient).fetchFeedAsync(any(), any(), any());
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		Future<Optional<Object>> first = callers
+				.submit(() -> neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-12", "relativeVelocity"));
+		Future<Optional<Object>> second = callers
+				.submit(() -> neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-12", "relativeVelocity"));
+		while (neoWsService.getCoalescedFetchCount() == 0) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+
+		assertEquals(3, ((List<?>) first.get().orElseThrow()).size());
+		assertEquals(3, ((List<?>) second.get().orElseThrow()).size());
+		assertEquals(1, neoWsService.getUpstreamFetchCount());
+		verify(neoWsClient, times(1)).fetchFeedAsync(any(), any(), any());
+		callers.shutdown();
+	}
+
+	@Test
+	void testDayCachedWhileCurrentIsFetchedAgainOnceItEnds() {
+		Clock clock = mock(Clock.class);
+		when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+		when(clock.instant()).thenReturn(Instant.parse("2023-08-10T23:00:00Z"));
+		NeoWsService service = new NeoWsService(neoWsClient, dayStore, archive, new SimpleMeterRegistry(), 90, 60,
+				366, clock);
+
+		service.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-10", "relativeVelocity");
+		service.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-10", "relativeVelocity");
+		when(clock.instant()).thenReturn(Instant.parse("2023-08-11T00:30:00Z"));
+		service.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-10", "relativeVelocity");
+		service.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-10", "relativeVelocity");
+
+		LocalDate day = LocalDate.of(2023, 8, 10);
+		verify(neoWsClient, times(2)).fetchFeedAsync(day, day, Priority.INTERACTIVE);
+		verify(dayStore).saveDays(List.of());
+		verify(dayStore).saveDays(argThat(days -> days.size() == 1));
+	}
+
+	@Test
+	void testPrefetchRefreshesCachedCurrentDaysInBackground() {
+		LocalDate today = LocalDate.now();
+		neoWsService.fetchDataAndExtractInfoJson(today.toString(), today.toString(), "relativeVelocity");
+
+		int prefetched = neoWsService.prefetch(new DateRange(today, today)).join();
+
+		assertEquals(1, prefetched);
+		verify(neoWsClient).fetchFeedAsync(today, today, Priority.INTERACTIVE);
+		verify(neoWsClient).fetchFeedAsync(today, today, Priority.BACKGROUND);
+	}
+
+	@Test
+	void testBackfillFetchesOnlyDaysNotStored() {
+		when(dayStore.findStoredDates(any()))
+				.thenReturn(Set.of(LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 2), LocalDate.of(2023, 8, 3)));
+
+		int fetched = neoWsService.backfill(new DateRange(LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 12))).join();
+
+		assertEquals(9, fetched);
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 4), LocalDate.of(2023, 8, 11), Priority.BACKGROUND);
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 12), LocalDate.of(2023, 8, 12), Priority.BACKGROUND);
+		verify(dayStore, times(2)).saveDays(any());
+		verify(dayStore, never()).findDays(any());
+		verifyNoMoreInteractions(neoWsClient);
+	}
+
+	@Test
+	void testBackfillDoesNotRefetchStoredDaysBetweenMissingOnes() {
+		when(dayStore.findStoredDates(any())).thenReturn(Set.of(LocalDate.of(2023, 8, 3), LocalDate.of(2023, 8, 4)));
+
+		int fetched = neoWsService.backfill(new DateRange(LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 6))).join();
+
+		assertEquals(4, fetched);
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 2), Priority.BACKGROUND);
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 5), LocalDate.of(2023, 8, 6), Priority.BACKGROUND);
+		verifyNoMoreInteractions(neoWsClient);
+	}
+
+	@Test
+	void testBackfillSharesDaysAnInteractiveRequestIsFetching() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> CompletableFuture.supplyAsync(() -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return feed(invocation.getArgument(0), invocation.getArgument(1));
+		})).when(neoWsClient).fetchFeedAsync(any(), any(), any());
+		ExecutorService callers = Executors.newSingleThreadExecutor();
+		Future<Optional<Object>> interactive = callers
+				.submit(() -> neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-12", "relativeVelocity"));
+		while (neoWsService.getUpstreamFetchCount() == 0) {
+			Thread.sleep(10);
+		}
+
+		CompletableFuture<Integer> backfilled = neoWsService
+				.backfill(new DateRange(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 12)));
+		release.countDown();
+
+		assertEquals(3, backfilled.get(5, TimeUnit.SECONDS));
+		assertEquals(3, ((List<?>) interactive.get().orElseThrow()).size());
+		assertEquals(1, neoWsService.getCoalescedFetchCount());
+		verify(neoWsClient, times(1)).fetchFeedAsync(any(), any(), any());
+		verify(dayStore, times(1)).saveDays(any());
+		callers.shutdown();
+	}
+
+	@Test
+	void testInteractiveRequestDoesNotWaitOnBackgroundFetch() throws Exception {
+		// A background fetch held back by the limiter's reserve, which interactive requests may still use
+		CompletableFuture<NeoWsResponse> heldBack = new CompletableFuture<>();
+		doReturn(heldBack).when(neoWsClient).fetchFeedAsync(any(), any(), eq(Priority.BACKGROUND));
+		CompletableFuture<Integer> backfilled = neoWsService
+				.backfill(new DateRange(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 12)));
+
+		List<?> velocities = (List<?>) neoWsService
+				.fetchDataAndExtractInfoJsonAsync("2023-08-11", "2023-08-11", "relativeVelocity", ResultWindow.ALL)
+				.get(5, TimeUnit.SECONDS).orElseThrow();
+
+		assertEquals(1, velocities.size());
+		assertEquals(0, neoWsService.getCoalescedFetchCount());
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 11), LocalDate.of(2023, 8, 11),
+				Priority.INTERACTIVE);
+		heldBack.complete(feed(LocalDate.of(2023, 8, 10), LocalDate.of(2023, 8, 12)));
+		assertEquals(3, backfilled.join());
+	}
+
+	@Test
+	void testFailedArchiveAppendIsCaughtUpFromStoredDays() {
+		doThrow(new UncheckedIOException(new IOException("No space left on device"))).doReturn(true).when(archive)
+				.append(any());
+		LocalDate missed = LocalDate.of(2023, 8, 10);
+		neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-10", "relativeVelocity");
+		verify(dayStore, never()).findAllStoredDates();
+
+		when(dayStore.findAllStoredDates()).thenReturn(List.of(missed));
+		when(dayStore.findDays(List.of(missed))).thenReturn(Map.of(missed, NeoWsDay.of(missed, List.of())));
+		neoWsService.fetchDataAndExtractInfoJson("2023-08-11", "2023-08-11", "relativeVelocity");
+		neoWsService.fetchDataAndExtractInfoJson("2023-08-12", "2023-08-12", "relativeVelocity");
+
+		verify(dayStore, times(1)).findAllStoredDates();
+		verify(dayStore, times(2)).findDays(List.of(missed));
+		verify(archive, times(4)).append(any());
+	}
+
+	@Test
+	void testStoredDaysMissingFromArchiveAreArchivedByMonth() {
+		LocalDate archived = LocalDate.of(2023, 7, 30);
+		LocalDate july = LocalDate.of(2023, 7, 31);
+		LocalDate august = LocalDate.of(2023, 8, 1);
+		when(dayStore.findAllStoredDates()).thenReturn(List.of(archived, july, august));
+		when(archive.contains(archived)).thenReturn(true);
+		when(dayStore.findDays(List.of(july))).thenReturn(Map.of(july, NeoWsDay.of(july, List.of())));
+		when(dayStore.findDays(List.of(august))).thenReturn(Map.of(august, NeoWsDay.of(august, List.of())));
+
+		int count = neoWsService.archiveStoredDays();
+
+		assertEquals(2, count);
+		verify(dayStore).findDays(List.of(july));
+		verify(dayStore).findDays(List.of(august));
+		verify(archive, times(2)).append(any());
+		verifyNoInteractions(neoWsClient);
+	}
+
+	@Test
+	void testArchivedRangeHistogramIsScannedWithoutFetching() {
+		when(archive.covers(any())).thenReturn(true);
+
+		HistogramDTO histogram = (HistogramDTO) neoWsService
+				.fetchHistogramJsonAsync("2021-01-01", "2022-12-31", "missDistances", 10, "linear").join()
+				.orElseThrow();
+
+		assertEquals(0, histogram.getCount());
+		verify(archive).scan(eq(new DateRange(LocalDate.of(2021, 1, 1), LocalDate.of(2022, 12, 31))),
+				eq(ApproachMetric.MISS_DISTANCE), any());
+		verifyNoInteractions(neoWsClient, dayStore);
+	}
+
+	@Test
+	void testArchivedRangeQuantilesAreScannedWithoutFetching() {
+		when(archive.covers(any())).thenReturn(true);
+
+		QuantilesDTO quantiles = (QuantilesDTO) neoWsService
+				.fetchQuantilesJsonAsync("2021-01-01", "2022-12-31", "relativeVelocity", List.of(0.5)).join()
+				.orElseThrow();
+
+		assertEquals(0, quantiles.getCount());
+		verify(archive).scan(eq(new DateRange(LocalDate.of(2021, 1, 1), LocalDate.of(2022, 12, 31))),
+				eq(ApproachMetric.RELATIVE_VELOCITY), any());
+		verifyNoInteractions(neoWsClient, dayStore);
+	}
+
+	@Test
+	void testShortArchivedRangeOfCachedDaysMergesDayAggregates() {
+		neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-12", "relativeVelocity");
+		when(archive.covers(any())).thenReturn(true);
+
+		QuantilesDTO quantiles = (QuantilesDTO) neoWsService
+				.fetchQuantilesJsonAsync("2023-08-10", "2023-08-12", "relativeVelocity", List.of(0.5)).join()
+				.orElseThrow();
+		HistogramDTO histogram = (HistogramDTO) neoWsService
+				.fetchHistogramJsonAsync("2023-08-10", "2023-08-12", "missDistances", 10, "linear").join()
+				.orElseThrow();
+		neoWsService.fetchDataAndExtractInfoJson("2023-08-10", "2023-08-12", "summary");
+
+		assertEquals(3, quantiles.getCount());
+		assertEquals(3, histogram.getCount());
+		verify(archive, never()).scan(any(), any(), any());
+		verify(archive, never()).cursor(any());
+		verify(neoWsClient, times(1)).fetchFeedAsync(any(), any(), any());
+	}
+
+	@Test
+	void testArchivedRangeSummaryIsScannedWithoutFetching(@TempDir Path dir) {
+		Clock clock = Clock.fixed(Instant.parse("2023-09-01T12:00:00Z"), ZoneOffset.UTC);
+		ApproachArchive realArchive = new ApproachArchive(dir, clock);
+		List<NeoWsDay> days = new ArrayList<>();
+		for (LocalDate day = LocalDate.of(2022, 1, 1); day.isBefore(LocalDate.of(2023, 8, 1)); day = day.plusDays(1)) {
+			days.add(NeoWsDay.of(day, List.of(neoObject("(" + day + ")", day.getDayOfMonth(), 1000.0))));
+		}
+		realArchive.append(days);
+		NeoWsService service = new NeoWsService(neoWsClient, dayStore, realArchive, new SimpleMeterRegistry(), 90, 60,
+				366, clock);
+
+		SummaryDTO summary = (SummaryDTO) service.fetchDataAndExtractInfoJson("2022-01-01", "2023-07-31", "summary")
+				.orElseThrow();
+		Diameter diameter = (Diameter) service.fetchDataAndExtractInfoJson("2022-01-01", "2023-07-31",
+				"maxMinDiameter").orElseThrow();
+
+		assertEquals(days.size(), summary.getObjectCount());
+		assertEquals(0.62, diameter.getEstimated_diameter_max());
+		assertEquals(0.01, diameter.getEstimated_diameter_min());
+		verifyNoInteractions(neoWsClient, dayStore);
+	}
+
+	@Test
+	void testAsteroidApproachesCombineStoredAndCachedDays() {
+		LocalDate today = LocalDate.now();
+		String id = "(" + today + ")";
+		when(dayStore.findObjects(eq(id), any()))
+				.thenReturn(List.of(new Pair<>(today.minusDays(400), neoObject(id, 1, 2))));
+		neoWsService.fetchDataAndExtractInfoJson(today.toString(), today.toString(), "relativeVelocity");
+
+		List<?> approaches = (List<?>) neoWsService.fetchApproachesJson(id, "", "").orElseThrow();
+
+		assertEquals(List.of(today.minusDays(400).toString(), today.toString()),
+				approaches.stream().map(approach -> ((AsteroidApproachDTO) approach).getDate()).toList());
+		verify(dayStore).findObjects(id, new DateRange(LocalDate.of(1900, 1, 1), LocalDate.of(2200, 12, 31)));
+		verify(neoWsClient, times(1)).fetchFeedAsync(any(), any(), any());
+		assertEquals("Invalid asteroid id: ", neoWsService.fetchApproachesJson("", "", "").orElseThrow());
+	}
+
+	@Test
+	void testLongRangeIsFetchedInUpstreamSizedWindows() {
+		List<?> result = (List<?>) neoWsService.fetchDataAndExtractInfoJson("2023-08-01", "2023-08-20",
+				"relativeVelocity").orElseThrow();
+
+		assertEquals(20, result.size());
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 8), Priority.INTERACTIVE);
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 9), LocalDate.of(2023, 8, 16), Priority.INTERACTIVE);
+		verify(neoWsClient).fetchFeedAsync(LocalDate.of(2023, 8, 17), LocalDate.of(2023, 8, 20), Priority.INTERACTIVE);
+		verifyNoMoreInteractions(neoWsClient);
+	}
+
+	@Test
+	void testAllInfoJsonFetchesOnceForSeveralInfoTypes() {
+		Map<?, ?> result = (Map<?, ?>) neoWsService.fetchDataAndExtractAllInfoJson("2023-08-10", "2023-08-11",
+				List.of("missDistances", "maxMinDiameter")).orElseThrow();
+
+		assertEquals(List.of("maxMinDiameter", "missDistances"), List.copyOf(result.keySet()));
+		verify(neoWsClient, times(1)).fetchFeedAsync(any(), any(), any());
+		assertEquals("Invalid info type: speed",
+				neoWsService.fetchDataAndExtractAllInfoJson("2023-08-10", "2023-08-11", List.of("speed")).orElseThrow());
+	}
+
+	static NeoWsResponse feed(LocalDate start, LocalDate end) {
+		Map<String, List<NeoObject>> days = new LinkedHashMap<>();
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			days.put(day.toString(), List.of(neoObject("(" + day + ")", day.getDayOfMonth(), day.getDayOfMonth())));
+		}
+		NeoWsResponse response = new NeoWsResponse();
+		response.setNear_earth_objects(days);
+		return response;
+	}
+
+	static NeoObject neoObject(String name, double velocity, double distance) {
+		Diameter kilometers = new Diameter();
+		kilometers.setEstimated_diameter_min(velocity / 100);
+		kilometers.setEstimated_diameter_max(velocity / 50);
+		EstimatedDiameter estimatedDiameter = new EstimatedDiameter();
+		estimatedDiameter.setKilometers(kilometers);
+
+		RelativeVelocity relativeVelocity = new RelativeVelocity();
+		relativeVelocity.setKilometers_per_second(velocity);
+		MissDistance missDistance = new MissDistance();
+		missDistance.setKilometers(distance);
+		CloseApproachData closeApproachData = new CloseApproachData();
+		closeApproachData.setRelative_velocity(relativeVelocity);
+		closeApproachData.setMiss_distance(missDistance);
+		closeApproachData.setOrbiting_body("Earth");
+
+		NeoObject neoObject = new NeoObject();
+		neoObject.setId(name);
+		neoObject.setName(name);
+		neoObject.setEstimated_diameter(estimatedDiameter);
+		neoObject.setIs_potentially_hazardous_asteroid(false);
+		neoObject.setClose_approach_data(List.of(closeApproachData));
+		return neoObject;
+	}
+}
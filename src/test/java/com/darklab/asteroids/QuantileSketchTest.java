@@ -0,0 +1,76 @@
+package com.darklab.asteroids;
+
+import static com.darklab.asteroids.NeoWsServiceTest.neoObject;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.darklab.asteroids.dto.NeoObject;
+import com.darklab.asteroids.service.ApproachMetric;
+import com.darklab.asteroids.service.CloseApproachColumns;
+import com.darklab.asteroids.service.QuantileSketch;
+
+public class QuantileSketchTest {
+
+	@Test
+	void testMergedDaySketchesStayWithinRelativeAccuracy() {
+		Random random = new Random(42);
+		List<QuantileSketch> days = new ArrayList<>();
+		List<Double> all = new ArrayList<>();
+		for (int day = 0; day < 30; day++) {
+			List<NeoObject> objects = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				// Miss distances spread over several orders of magnitude, like the feed
+				double distance = Math.exp(14 + 3 * random.nextGaussian());
+				objects.add(neoObject("A" + day + "-" + i, 1 + 30 * random.nextDouble(), distance));
+				all.add(distance);
+			}
+			days.add(QuantileSketch.of(CloseApproachColumns.of(objects), ApproachMetric.MISS_DISTANCE));
+		}
+		double[] sorted = all.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+
+		QuantileSketch merged = QuantileSketch.merge(days);
+
+		assertEquals(sorted.length, merged.count());
+		assertEquals(sorted[0], merged.min());
+		assertEquals(sorted[sorted.length - 1], merged.max());
+		for (double quantile : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+			double exact = sorted[(int) (quantile * (sorted.length - 1))];
+			assertEquals(exact, merged.quantile(quantile), exact * merged.relativeAccuracy(), "q=" + quantile);
+		}
+		assertTrue(merged.bucketCount() <= QuantileSketch.MAX_BUCKETS);
+	}
+
+	@Test
+	void testZeroValuesAndEmptySketch() {
+		QuantileSketch sketch = QuantileSketch.of(CloseApproachColumns.of(
+				List.of(neoObject("A", 0, 10), neoObject("B", 0, 20), neoObject("C", 4, 30), neoObject("D", 4, 40))),
+				ApproachMetric.RELATIVE_VELOCITY);
+
+		assertEquals(0.0, sketch.quantile(0.5));
+		assertEquals(4.0, sketch.quantile(0.9), 4 * sketch.relativeAccuracy());
+		assertTrue(Double.isNaN(QuantileSketch.merge(List.of()).quantile(0.5)));
+		assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+	}
+
+	@Test
+	void testBucketsAreCappedAcrossExtremeRanges() {
+		List<QuantileSketch> days = Arrays.stream(new double[]{1e-200, 1e-50, 1, 1e50, 1e200})
+				.mapToObj(distance -> QuantileSketch.of(CloseApproachColumns.of(
+						List.of(neoObject("A", 1, distance), neoObject("B", 1, Math.max(1, distance)))),
+						ApproachMetric.MISS_DISTANCE))
+				.toList();
+
+		QuantileSketch merged = QuantileSketch.merge(days);
+
+		// Only the lowest buckets are folded, so the upper quantiles keep their accuracy
+		assertEquals(QuantileSketch.MAX_BUCKETS, merged.bucketCount());
+		assertEquals(1e200, merged.quantile(0.99), 1e200 * merged.relativeAccuracy());
+		assertEquals(1e-200, merged.quantile(0));
+	}
+}
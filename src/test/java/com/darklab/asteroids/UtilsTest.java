@@ -0,0 +1,166 @@
+package com.darklab.asteroids;
+
+import static com.darklab.asteroids.NeoWsServiceTest.neoObject;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.darklab.asteroids.dto.*;
+import com.darklab.asteroids.service.ApproachMetric;
+import com.darklab.asteroids.service.CloseApproachColumns;
+import com.darklab.asteroids.service.DaySummary;
+import com.darklab.asteroids.service.NeoWsDay;
+import com.darklab.asteroids.service.ResultWindow;
+import com.darklab.asteroids.service.Utils;
+
+public class UtilsTest {
+
+	@Test
+	void testExtractMaxMinDiameterListsTiedAsteroids() {
+		DaySummary summary = day(neoObject("A", 50, 1), neoObject("B", 100, 2), neoObject("C", 100, 3),
+				neoObject("D", 10, 4)).summary();
+
+		assertEquals(List.of("Max Diameter: 2.0 km - Asteroids: B, C", "Min Diameter: 0.1 km - Asteroids: D"),
+				Utils.extractMaxMinDiameter(summary));
+		Diameter diameter = Utils.extractMaxMinDiameterJson(summary);
+		assertEquals(2.0, diameter.getEstimated_diameter_max());
+		assertEquals(0.1, diameter.getEstimated_diameter_min());
+	}
+
+	@Test
+	void testExtractMaxMinDiameterWithoutData() {
+		DaySummary summary = day().summary();
+
+		assertEquals(List.of("Max Diameter: N/A", "Min Diameter: N/A"), Utils.extractMaxMinDiameter(summary));
+		assertEquals(0.0, Utils.extractMaxMinDiameterJson(summary).getEstimated_diameter_max());
+	}
+
+	@Test
+	void testExtractVelocitiesAndDistancesAreSortedAndStable() {
+		NeoObject withoutVelocity = neoObject("E", 1, 5);
+		withoutVelocity.getClose_approach_data().get(0).setRelative_velocity(new RelativeVelocity());
+		List<CloseApproachColumns> days = List.of(day(neoObject("A", 3, 30), neoObject("B", 1, 20),
+				neoObject("C", 3, 10), withoutVelocity).columns());
+
+		assertEquals(List.of("B", "A", "C"), Utils.extractRelativeVelocityJson(days, ResultWindow.ALL).stream()
+				.map(AsteroidVelocityDTO::getName).toList());
+		assertEquals(List.of("E", "C", "B", "A"), Utils.extractMissDistancesJson(days, ResultWindow.ALL).stream()
+				.map(AsteroidMissDistanceDTO::getName).toList());
+		assertEquals("B: 1.000 km/s", Utils.extractRelativeVelocity(days, ResultWindow.ALL).get(0));
+		assertEquals("E: 5.000 km", Utils.extractMissDistances(days, ResultWindow.ALL).get(0));
+	}
+
+	@Test
+	void testExtractFromDayColumnsMergesDaysInOrder() {
+		List<CloseApproachColumns> days = List.of(
+				NeoWsDay.of(LocalDate.of(2023, 8, 10),
+						List.of(neoObject("A", 3, 30), neoObject("B", 1, 20), neoObject("C", 5, 10))).columns(),
+				NeoWsDay.of(LocalDate.of(2023, 8, 11), List.of(neoObject("D", 3, 25), neoObject("E", 0.5, 40)))
+						.columns());
+
+		assertEquals(List.of("E: 0.500 km/s", "B: 1.000 km/s", "A: 3.000 km/s", "D: 3.000 km/s", "C: 5.000 km/s"),
+				Utils.extractRelativeVelocity(days, ResultWindow.ALL));
+		assertEquals(List.of("E", "B", "A", "D", "C"), Utils.extractRelativeVelocityJson(days, ResultWindow.ALL).stream()
+				.map(AsteroidVelocityDTO::getName).toList());
+		assertEquals(List.of("C: 10.000 km", "B: 20.000 km", "D: 25.000 km", "A: 30.000 km", "E: 40.000 km"),
+				Utils.extractMissDistances(days, ResultWindow.ALL));
+		assertEquals(List.of(10.0, 20.0, 25.0, 30.0, 40.0), Utils.extractMissDistancesJson(days, ResultWindow.ALL).stream()
+				.map(AsteroidMissDistanceDTO::getDistance).toList());
+	}
+
+	@Test
+	void testExtractWindowMatchesSlicedFullSort() {
+		List<CloseApproachColumns> days = List.of(day(neoObject("A", 3, 30), neoObject("B", 1, 20),
+				neoObject("C", 3, 10), neoObject("D", 7, 40), neoObject("E", 3, 50), neoObject("F", 2, 60)).columns());
+		List<String> ascending = Utils.extractRelativeVelocity(days, ResultWindow.ALL);
+		List<String> reversed = new ArrayList<>(ascending);
+		Collections.reverse(reversed);
+
+		for (boolean descending : List.of(false, true)) {
+			List<String> all = Utils.extractRelativeVelocity(days, new ResultWindow(0, ResultWindow.UNLIMITED,
+					descending));
+			assertEquals(descending ? reversed : ascending, all);
+			for (int offset = 0; offset <= all.size(); offset++) {
+				for (int limit = 0; limit <= all.size() + 1; limit++) {
+					ResultWindow window = new ResultWindow(offset, limit, descending);
+					List<String> expected = all.subList(offset, Math.min(all.size(), offset + limit));
+					assertEquals(expected, Utils.extractRelativeVelocity(days, window), window.toString());
+				}
+			}
+		}
+		assertEquals(List.of("D", "E", "C", "A"), Utils.extractRelativeVelocityJson(days,
+				new ResultWindow(0, 4, true)).stream().map(AsteroidVelocityDTO::getName).toList());
+	}
+
+	@Test
+	void testMergedDaySummariesMatchSummaryOfAllObjects() {
+		NeoObject hazardous = neoObject("C", 5, 10);
+		hazardous.setIs_potentially_hazardous_asteroid(true);
+		List<NeoObject> firstObjects = List.of(neoObject("A", 5, 30), neoObject("B", 1, 20), hazardous);
+		List<NeoObject> secondObjects = List.of(neoObject("D", 1, 25), neoObject("E", 5, 40));
+		NeoWsDay first = NeoWsDay.of(LocalDate.of(2023, 8, 10), firstObjects);
+		NeoWsDay second = NeoWsDay.of(LocalDate.of(2023, 8, 11), secondObjects);
+		List<NeoObject> allObjects = new ArrayList<>(firstObjects);
+		allObjects.addAll(secondObjects);
+
+		DaySummary merged = DaySummary.merge(List.of(first.summary(), DaySummary.EMPTY, second.summary()));
+
+		assertEquals(Utils.extractMaxMinDiameter(DaySummary.of(allObjects)), Utils.extractMaxMinDiameter(merged));
+		assertEquals(List.of("A", "C", "E"), merged.maxDiameterNames());
+		assertEquals(List.of("B", "D"), merged.minDiameterNames());
+		SummaryDTO summary = Utils.extractSummaryJson(merged);
+		assertEquals(5, summary.getObjectCount());
+		assertEquals(1, summary.getHazardousCount());
+		assertEquals(5, summary.getApproachCount());
+		assertEquals(3.4, summary.getMeanVelocity(), 1e-12);
+		assertEquals(25.0, summary.getMeanMissDistance(), 1e-12);
+		assertNull(Utils.extractSummaryJson(DaySummary.EMPTY).getMaxDiameter());
+	}
+
+	@Test
+	void testExtractHistogramBinsAndSummarizesDays() {
+		List<CloseApproachColumns> days = List.of(
+				NeoWsDay.of(LocalDate.of(2023, 8, 10),
+						List.of(neoObject("A", 3, 30), neoObject("B", 1, 20), neoObject("C", 5, 10))).columns(),
+				NeoWsDay.of(LocalDate.of(2023, 8, 11),
+						List.of(neoObject("D", 3, 25), neoObject("E", 0.5, 40), neoObject("F", 0, 50))).columns());
+
+		HistogramDTO linear = Utils.extractHistogramJson(days, ApproachMetric.MISS_DISTANCE, "missDistances", 4,
+				false);
+		assertEquals(List.of(10.0, 20.0, 30.0, 40.0, 50.0), linear.getBinEdges());
+		assertArrayEquals(new long[]{1, 2, 1, 2}, linear.getCounts());
+		assertEquals(6, linear.getCount());
+		assertEquals(29.1667, linear.getMean(), 1e-4);
+		assertEquals(13.0437, linear.getStandardDeviation(), 1e-4);
+
+		// Diameters are velocity / 50, and the zero diameter of F is left out
+		HistogramDTO log = Utils.extractHistogramJson(days, ApproachMetric.DIAMETER, "diameter", 2, true);
+		assertEquals(3, log.getBinEdges().size());
+		assertEquals(0.01, log.getMin(), 1e-12);
+		assertEquals(Math.sqrt(0.001), log.getBinEdges().get(1), 1e-12);
+		assertEquals(0.1, log.getMax(), 1e-12);
+		assertArrayEquals(new long[]{2, 3}, log.getCounts());
+		assertEquals(5, log.getCount());
+	}
+
+	@Test
+	void testExtractHistogramWithoutData() {
+		HistogramDTO histogram = Utils.extractHistogramJson(List.of(), ApproachMetric.RELATIVE_VELOCITY,
+				"relativeVelocity", 10, false);
+
+		assertEquals(0, histogram.getCount());
+		assertNull(histogram.getMean());
+		assertEquals(0, histogram.getCounts().length);
+	}
+
+	private static NeoWsDay day(NeoObject... objects) {
+		return NeoWsDay.of(LocalDate.of(2023, 8, 10), List.of(objects));
+	}
+}